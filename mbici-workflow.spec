@@ -15,7 +15,6 @@ BuildRequires:  maven
 BuildRequires:  rubygem-asciidoctor
 
 Requires:       git-core
-Requires:       curl
 Requires:       dnf5
 Requires:       mock
 Requires:       createrepo_c
@@ -21,6 +21,7 @@ import io.kojan.mbici.generate.GenerateCommand;
 import io.kojan.mbici.report.ReportCommand;
 import io.kojan.mbici.subject.LocalSubjectCommand;
 import io.kojan.mbici.workspace.ConfigCommand;
+import io.kojan.mbici.workspace.GcCommand;
 import io.kojan.mbici.workspace.InitCommand;
 import io.kojan.mbici.workspace.LogCommand;
 import io.kojan.mbici.workspace.RunCommand;
@@ -46,6 +47,7 @@ import picocli.CommandLine.IVersionProvider;
             ValidateCommand.class,
             TestCommand.class,
             StatusCommand.class,
+            GcCommand.class,
             LocalSubjectCommand.class,
             GenerateCommand.class,
             LocalExecuteCommand.class,
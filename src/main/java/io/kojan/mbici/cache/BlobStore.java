@@ -0,0 +1,92 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/// Content-addressed store of immutable files, keyed by their SHA-256.
+///
+/// Files are deduplicated by replacing them with hard links to blobs with the
+/// same content, so they need to be on the same filesystem as the store.
+public class BlobStore {
+    private final Path blobDir;
+
+    public BlobStore(Path blobDir) throws IOException {
+        this.blobDir = blobDir;
+        Files.createDirectories(blobDir);
+    }
+
+    public Path getBlobDir() {
+        return blobDir;
+    }
+
+    public static String sha256(Path path) throws IOException {
+        try (InputStream is = Files.newInputStream(path)) {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] buf = new byte[65536];
+            int n;
+            while ((n = is.read(buf)) > 0) {
+                md.update(buf, 0, n);
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Path getBlobPath(String sha256) {
+        return blobDir.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    /// Makes given file share its inode with the blob of the same content.
+    ///
+    /// Returns `true` if the file is now linked to the store, or `false` if it
+    /// could not be linked because the filesystem does not support hard links.
+    public boolean deduplicate(Path path) throws IOException {
+        Path blobPath = getBlobPath(sha256(path));
+        Files.createDirectories(blobPath.getParent());
+        try {
+            try {
+                Files.createLink(blobPath, path);
+                return true;
+            } catch (FileAlreadyExistsException e) {
+                // Identical content was stored before, link the file to it
+            }
+            if (Files.isSameFile(blobPath, path)) {
+                return true;
+            }
+            Path tempPath = path.resolveSibling(path.getFileName() + ".blob.tmp");
+            Files.deleteIfExists(tempPath);
+            Files.createLink(tempPath, blobPath);
+            Files.move(
+                    tempPath,
+                    path,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+}
@@ -19,21 +19,33 @@ import io.kojan.workflow.TaskStorage;
 import io.kojan.workflow.TaskTermination;
 import io.kojan.workflow.model.Task;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 /// @author Mikolaj Izdebski
 public class CacheManager implements TaskStorage {
     private final Path resultRootDir;
     private final Path cacheRootDir;
     private final Path workRootDir;
+    private HistoryStore historyStore;
+    private BlobStore blobStore;
+    private boolean blobStoreChecked;
+    private final SingleFlight singleFlight;
 
     public CacheManager(Path resultRootDir, Path cacheRootDir, Path workRootDir)
             throws IOException {
         this.resultRootDir = resultRootDir;
         this.cacheRootDir = cacheRootDir;
         this.workRootDir = workRootDir;
+        this.singleFlight = new SingleFlight(cacheRootDir.resolve("locks"));
     }
 
     public Path getResultRootDir() {
@@ -62,18 +74,154 @@ public class CacheManager implements TaskStorage {
         return distgitCacheDir.resolve(key);
     }
 
+    /// Returns path to bare Git repository that mirrors given SCM repository.
+    public Path getGitMirror(String scm) throws IOException {
+        Path mirrorCacheDir = cacheRootDir.resolve("mirrors");
+        Files.createDirectories(mirrorCacheDir);
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest(scm.getBytes(StandardCharsets.UTF_8));
+            return mirrorCacheDir.resolve("mirror-" + HexFormat.of().formatHex(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public Path getLookaside(String key) throws IOException {
         Path lookasideCacheDir = cacheRootDir.resolve("lookaside");
         Files.createDirectories(lookasideCacheDir);
         return lookasideCacheDir.resolve(key);
     }
 
+    /// Returns directory where mock keeps cached buildroot with given key.
+    public Path getMockRootCache(String key) throws IOException {
+        Path rootCacheDir = getMockRootCacheDir().resolve(key);
+        Files.createDirectories(rootCacheDir);
+        return rootCacheDir;
+    }
+
+    /// Returns directory where mock buildroot with given key is kept for
+    /// builds to mount their overlays on. The directory is moved into place
+    /// only once the buildroot is fully installed.
+    public Path getMockOverlayBase(String key) {
+        return getMockRootCacheDir().resolve(key + "-overlay");
+    }
+
+    /// Returns directory where dnf cache with metadata of repositories with
+    /// given key is kept. The directory is moved into place only once the
+    /// metadata is fully loaded.
+    public Path getMockDnfCache(String key) {
+        return getMockRootCacheDir().resolve(key + "-dnf");
+    }
+
+    /// Returns directory where config fragments shared by mock builds are kept.
+    public Path getMockConfigDir() {
+        return cacheRootDir.resolve("mock-config");
+    }
+
+    /// Name of mock config that is left in mock cache entries holding
+    /// buildroots, which are owned by root, so that mock can scrub them.
+    public static final String MOCK_SCRUB_CONFIG = "scrub.cfg";
+
+    public Path getMockRootCacheDir() {
+        return cacheRootDir.resolve("mock-root");
+    }
+
+    public Path getHistoryDir() {
+        return cacheRootDir.resolve("history");
+    }
+
+    public synchronized HistoryStore getHistoryStore() throws IOException {
+        if (historyStore == null) {
+            historyStore = new HistoryStore(getHistoryDir());
+        }
+        return historyStore;
+    }
+
+    public Path getBlobDir() {
+        return cacheRootDir.resolve("blobs");
+    }
+
+    /// Returns store that results are deduplicated against, or `null` if
+    /// results are kept on a different filesystem than the cache, so that
+    /// they can't be hard-linked to blobs.
+    public synchronized BlobStore getBlobStore() throws IOException {
+        if (!blobStoreChecked) {
+            blobStoreChecked = true;
+            Files.createDirectories(resultRootDir);
+            Files.createDirectories(cacheRootDir);
+            if (Files.getFileStore(resultRootDir).equals(Files.getFileStore(cacheRootDir))) {
+                blobStore = new BlobStore(getBlobDir());
+            } else {
+                System.err.println(
+                        "Results are kept on a different filesystem than cache,"
+                                + " they will not be deduplicated");
+            }
+        }
+        return blobStore;
+    }
+
+    /// Runs fetch of cache entry with given key, waiting for any concurrent
+    /// fetch of the same entry to finish first.
+    public void singleFlight(String key, SingleFlight.Action action)
+            throws TaskTermination, IOException {
+        singleFlight.run(key, action);
+    }
+
+    public Path getWorkflowArchiveDir() throws IOException {
+        Path workflowArchiveDir = cacheRootDir.resolve("workflows");
+        Files.createDirectories(workflowArchiveDir);
+        return workflowArchiveDir;
+    }
+
+    public Path getPendingDir() {
+        return cacheRootDir.resolve("pending");
+    }
+
     public Path createPending(String key) throws TaskTermination, IOException {
-        Path cachePendingDir = cacheRootDir.resolve("pending");
+        Path cachePendingDir = getPendingDir();
         Files.createDirectories(cachePendingDir);
         return Files.createTempDirectory(
                 cachePendingDir,
                 key,
                 PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwxr-xr-x")));
     }
+
+    /// Removes pending directory that is not going to be moved into the cache.
+    public void discardPending(Path pendingDir) throws IOException {
+        deleteTree(pendingDir);
+    }
+
+    /// Removes work dir of a task that has finished.
+    public void discardWorkDir(Task task, String resultId) throws IOException {
+        Path workDir = getWorkDir(task, resultId);
+        if (Files.exists(workDir, LinkOption.NOFOLLOW_LINKS)) {
+            deleteTree(workDir);
+        }
+    }
+
+    /// Recursively deletes given file or directory.
+    ///
+    /// Returns number of bytes freed, not counting files that still have other
+    /// hard links, for example from the blob store.
+    static long deleteTree(Path path) throws IOException {
+        long freed = 0;
+        BasicFileAttributes attrs =
+                Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (attrs.isDirectory()) {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(path)) {
+                for (Path child : ds) {
+                    freed += deleteTree(child);
+                }
+            }
+        } else if (attrs.isRegularFile() && getLinkCount(path) == 1) {
+            freed += attrs.size();
+        }
+        Files.delete(path);
+        return freed;
+    }
+
+    static int getLinkCount(Path path) throws IOException {
+        return (Integer) Files.getAttribute(path, "unix:nlink", LinkOption.NOFOLLOW_LINKS);
+    }
 }
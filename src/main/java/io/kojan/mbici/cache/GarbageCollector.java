@@ -0,0 +1,225 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.cache;
+
+import io.kojan.workflow.model.Result;
+import io.kojan.workflow.model.Workflow;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Deletes task results, work dirs and cache entries that are no longer needed.
+///
+/// Results referenced by any workflow passed to [#markReachable] are kept.
+/// Everything else that was not modified within the grace period is swept,
+/// which protects results of tasks that are still running and have not yet
+/// been recorded in any workflow. Blobs are swept once no result links to
+/// them anymore. Entries that can't be removed are reported and skipped, so
+/// that they don't prevent collection of the rest.
+public class GarbageCollector {
+    private final CacheManager cacheManager;
+    private final Duration gracePeriod;
+    private final Set<String> reachable = new HashSet<>();
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+    private final AtomicInteger removedResults = new AtomicInteger();
+    private final AtomicInteger removedWorkDirs = new AtomicInteger();
+    private final AtomicInteger removedPendingDirs = new AtomicInteger();
+    private final AtomicInteger removedBlobs = new AtomicInteger();
+    private final AtomicInteger removedRootCaches = new AtomicInteger();
+    private final AtomicInteger removedMockConfigs = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private Instant cutoff;
+
+    public GarbageCollector(CacheManager cacheManager, Duration gracePeriod) {
+        this.cacheManager = cacheManager;
+        this.gracePeriod = gracePeriod;
+    }
+
+    public void markReachable(Workflow workflow) {
+        for (Result result : workflow.getResults()) {
+            reachable.add(result.getTaskId() + "/" + result.getId());
+        }
+    }
+
+    public long getReclaimedBytes() {
+        return reclaimedBytes.get();
+    }
+
+    public int getRemovedResults() {
+        return removedResults.get();
+    }
+
+    public int getRemovedWorkDirs() {
+        return removedWorkDirs.get();
+    }
+
+    public int getRemovedPendingDirs() {
+        return removedPendingDirs.get();
+    }
+
+    public int getRemovedBlobs() {
+        return removedBlobs.get();
+    }
+
+    public int getRemovedRootCaches() {
+        return removedRootCaches.get();
+    }
+
+    public int getRemovedMockConfigs() {
+        return removedMockConfigs.get();
+    }
+
+    /// Returns number of entries that could not be removed.
+    public int getFailures() {
+        return failures.get();
+    }
+
+    private void reportFailure(Path path, IOException e) {
+        System.err.println("Unable to remove " + path + ": " + e.getMessage());
+        failures.incrementAndGet();
+    }
+
+    private static List<Path> list(Path dir) throws IOException {
+        List<Path> children = new ArrayList<>();
+        if (Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+                for (Path child : ds) {
+                    children.add(child);
+                }
+            }
+        }
+        return children;
+    }
+
+    private boolean isStale(Path path) throws IOException {
+        return Files.getLastModifiedTime(path, LinkOption.NOFOLLOW_LINKS)
+                .toInstant()
+                .isBefore(cutoff);
+    }
+
+    /// Lists `<task>/<resultId>` directories under given root that are stale
+    /// and not kept.
+    private List<Path> findGarbage(Path rootDir, Set<String> keep) throws IOException {
+        List<Path> garbage = new ArrayList<>();
+        for (Path taskDir : list(rootDir)) {
+            for (Path dir : list(taskDir)) {
+                String key = taskDir.getFileName() + "/" + dir.getFileName();
+                if (!keep.contains(key) && isStale(dir)) {
+                    garbage.add(dir);
+                }
+            }
+        }
+        return garbage;
+    }
+
+    /// Removes buildroot that mock installed in given cache entry, which is
+    /// owned by root, using mock itself.
+    private static void scrubMockRoot(Path dir) throws IOException {
+        Path confPath = dir.resolve(CacheManager.MOCK_SCRUB_CONFIG);
+        if (!Files.isRegularFile(confPath)) {
+            return;
+        }
+        Process process =
+                new ProcessBuilder("mock", "-r", confPath.toString(), "--scrub=all")
+                        .redirectInput(Path.of("/dev/null").toFile())
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .redirectError(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("Unable to scrub mock buildroot in " + dir);
+            }
+        } catch (InterruptedException e) {
+            process.destroy();
+            throw new InterruptedIOException("Interrupted while scrubbing " + dir);
+        }
+    }
+
+    private void sweep(List<Path> garbage, AtomicInteger counter) {
+        garbage.parallelStream()
+                .forEach(
+                        path -> {
+                            try {
+                                reclaimedBytes.addAndGet(CacheManager.deleteTree(path));
+                                counter.incrementAndGet();
+                            } catch (IOException e) {
+                                reportFailure(path, e);
+                            }
+                        });
+    }
+
+    private List<Path> findOrphanBlobs() throws IOException {
+        List<Path> orphans = new ArrayList<>();
+        for (Path prefixDir : list(cacheManager.getBlobDir())) {
+            for (Path blob : list(prefixDir)) {
+                if (CacheManager.getLinkCount(blob) == 1 && isStale(blob)) {
+                    orphans.add(blob);
+                }
+            }
+        }
+        return orphans;
+    }
+
+    public void collect() throws IOException {
+        cutoff = Instant.now().minus(gracePeriod);
+        sweep(findGarbage(cacheManager.getResultRootDir(), reachable), removedResults);
+        // Work dirs are only needed while their tasks are running
+        sweep(findGarbage(cacheManager.getWorkRootDir(), Set.of()), removedWorkDirs);
+        List<Path> stalePending = new ArrayList<>();
+        for (Path pendingDir : list(cacheManager.getPendingDir())) {
+            if (isStale(pendingDir)) {
+                stalePending.add(pendingDir);
+            }
+        }
+        sweep(stalePending, removedPendingDirs);
+        // Mock touches root caches whenever it uses them
+        List<Path> staleRootCaches = new ArrayList<>();
+        for (Path rootCacheDir : list(cacheManager.getMockRootCacheDir())) {
+            if (isStale(rootCacheDir)) {
+                try {
+                    scrubMockRoot(rootCacheDir);
+                    staleRootCaches.add(rootCacheDir);
+                } catch (InterruptedIOException e) {
+                    throw e;
+                } catch (IOException e) {
+                    reportFailure(rootCacheDir, e);
+                }
+            }
+        }
+        sweep(staleRootCaches, removedRootCaches);
+        // Mock config fragments are linked from results of tasks using them
+        List<Path> orphanConfigs = new ArrayList<>();
+        for (Path fragment : list(cacheManager.getMockConfigDir())) {
+            if (CacheManager.getLinkCount(fragment) == 1 && isStale(fragment)) {
+                orphanConfigs.add(fragment);
+            }
+        }
+        sweep(orphanConfigs, removedMockConfigs);
+        // Blobs are swept last, after results linking to them were removed
+        sweep(findOrphanBlobs(), removedBlobs);
+    }
+}
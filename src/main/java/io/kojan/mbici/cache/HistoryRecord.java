@@ -0,0 +1,113 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/// Resource usage of a single task execution.
+public class HistoryRecord {
+    private final String taskId;
+    private final String handler;
+    private final String resultId;
+    private final String outcome;
+    private final Instant timeStarted;
+    private final Duration duration;
+    private final long peakRss;
+    private final Duration cpuTime;
+
+    public HistoryRecord(
+            String taskId,
+            String handler,
+            String resultId,
+            String outcome,
+            Instant timeStarted,
+            Duration duration,
+            long peakRss,
+            Duration cpuTime) {
+        this.taskId = taskId;
+        this.handler = handler;
+        this.resultId = resultId;
+        this.outcome = outcome;
+        this.timeStarted = timeStarted;
+        this.duration = duration;
+        this.peakRss = peakRss;
+        this.cpuTime = cpuTime;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public String getResultId() {
+        return resultId;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public Instant getTimeStarted() {
+        return timeStarted;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /// Peak resident set size in bytes, or zero if unknown.
+    public long getPeakRss() {
+        return peakRss;
+    }
+
+    /// Total CPU time, or zero if unknown.
+    public Duration getCpuTime() {
+        return cpuTime;
+    }
+
+    String format() {
+        return String.join(
+                "\t",
+                taskId,
+                handler,
+                resultId,
+                outcome,
+                Long.toString(timeStarted.toEpochMilli()),
+                Long.toString(duration.toMillis()),
+                Long.toString(peakRss),
+                Long.toString(cpuTime.toMillis()));
+    }
+
+    static HistoryRecord parse(String line) {
+        String[] fields = line.split("\t");
+        if (fields.length != 8) {
+            throw new IllegalArgumentException("Malformed history record: " + line);
+        }
+        return new HistoryRecord(
+                fields[0],
+                fields[1],
+                fields[2],
+                fields[3],
+                Instant.ofEpochMilli(Long.parseLong(fields[4])),
+                Duration.ofMillis(Long.parseLong(fields[5])),
+                Long.parseLong(fields[6]),
+                Duration.ofMillis(Long.parseLong(fields[7])));
+    }
+}
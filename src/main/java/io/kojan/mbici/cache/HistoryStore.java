@@ -0,0 +1,131 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.cache;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Persistent record of task executions across workflow runs.
+///
+/// Records are appended to a log file, one line per task execution. The whole
+/// log is read when the store is opened and indexed by task ID, keeping only
+/// the latest successful execution of each task. When the log grows much
+/// bigger than the index, it is compacted by rewriting only indexed records.
+public class HistoryStore {
+    private static final int COMPACTION_RATIO = 4;
+
+    private final Path logPath;
+    private final Path lockPath;
+    private final Map<String, HistoryRecord> index = new LinkedHashMap<>();
+    private final boolean readOnly;
+    private int logSize;
+
+    public HistoryStore(Path historyDir) throws IOException {
+        this(historyDir, false);
+    }
+
+    private HistoryStore(Path historyDir, boolean readOnly) throws IOException {
+        this.readOnly = readOnly;
+        if (!readOnly) {
+            Files.createDirectories(historyDir);
+        }
+        logPath = historyDir.resolve("history.log");
+        lockPath = historyDir.resolve("history.lock");
+        if (Files.exists(logPath)) {
+            for (String line : Files.readAllLines(logPath, StandardCharsets.UTF_8)) {
+                try {
+                    addToIndex(index, HistoryRecord.parse(line));
+                    logSize++;
+                } catch (IllegalArgumentException e) {
+                    // Skip records that were partially written
+                }
+            }
+        }
+    }
+
+    /// Opens store only for lookups, without creating anything on disk. Store
+    /// is empty if there is no history yet.
+    public static HistoryStore openReadOnly(Path historyDir) throws IOException {
+        return new HistoryStore(historyDir, true);
+    }
+
+    private static void addToIndex(Map<String, HistoryRecord> index, HistoryRecord record) {
+        if (record.getOutcome().equals("SUCCESS") || !index.containsKey(record.getTaskId())) {
+            index.put(record.getTaskId(), record);
+        }
+    }
+
+    public synchronized HistoryRecord lookup(String taskId) {
+        return index.get(taskId);
+    }
+
+    public synchronized void append(HistoryRecord record) throws IOException {
+        if (readOnly) {
+            throw new IllegalStateException("History store is read-only");
+        }
+        addToIndex(index, record);
+        // Lock protects against concurrent compaction by other processes sharing the cache
+        try (FileChannel channel =
+                        FileChannel.open(
+                                lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.lock()) {
+            Files.writeString(
+                    logPath,
+                    record.format() + "\n",
+                    StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+            if (++logSize > COMPACTION_RATIO * index.size()) {
+                compact();
+            }
+        }
+    }
+
+    private void compact() throws IOException {
+        // Re-read the log as other processes may have appended their records to it
+        Map<String, HistoryRecord> latest = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(logPath, StandardCharsets.UTF_8)) {
+            try {
+                addToIndex(latest, HistoryRecord.parse(line));
+            } catch (IllegalArgumentException e) {
+                // Drop records that were partially written
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        for (HistoryRecord record : latest.values()) {
+            lines.add(record.format());
+        }
+        Path tempPath = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+        Files.write(tempPath, lines, StandardCharsets.UTF_8);
+        Files.move(
+                tempPath,
+                logPath,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        index.putAll(latest);
+        logSize = lines.size();
+    }
+}
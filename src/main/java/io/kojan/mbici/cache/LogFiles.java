@@ -0,0 +1,128 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.cache;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/// Locates and reads task logs, whether they are compressed or not.
+public final class LogFiles {
+    public static final String GZIP_SUFFIX = ".gz";
+
+    private LogFiles() {}
+
+    static Path getIndexPath(Path logPath) {
+        return logPath.resolveSibling(logPath.getFileName() + ".idx");
+    }
+
+    /// Returns name that log stored as artifact with given name is presented
+    /// under to users, which is the name of uncompressed log.
+    public static String getPlainName(String name) {
+        if (name.endsWith(GZIP_SUFFIX)) {
+            return name.substring(0, name.length() - GZIP_SUFFIX.length());
+        }
+        return name;
+    }
+
+    /// Returns path to the log with given uncompressed path, or path to its
+    /// compressed form, or `null` if neither of them exists.
+    public static Path find(Path plainPath) {
+        if (Files.isRegularFile(plainPath)) {
+            return plainPath;
+        }
+        Path gzipPath = plainPath.resolveSibling(plainPath.getFileName() + GZIP_SUFFIX);
+        if (Files.isRegularFile(gzipPath)) {
+            return gzipPath;
+        }
+        return null;
+    }
+
+    private static boolean isCompressed(Path path) {
+        return path.getFileName().toString().endsWith(GZIP_SUFFIX);
+    }
+
+    /// Opens log for reading, decompressing it if needed.
+    public static InputStream open(Path path) throws IOException {
+        return openAtLine(path, 1);
+    }
+
+    /// Opens log for reading, starting at given line, counting from 1. Index
+    /// of the log is used to skip directly to the nearest preceding chunk.
+    public static InputStream openAtLine(Path path, long line) throws IOException {
+        long chunkLine = 0;
+        long chunkOffset = 0;
+        Path indexPath = getIndexPath(path);
+        if (line > 1 && Files.isRegularFile(indexPath)) {
+            for (String entry : Files.readAllLines(indexPath)) {
+                String[] fields = entry.split(" ");
+                long entryLine = Long.parseLong(fields[0]);
+                if (entryLine >= line) {
+                    break;
+                }
+                chunkLine = entryLine;
+                chunkOffset = Long.parseLong(fields[1]);
+            }
+        }
+        InputStream is = Files.newInputStream(path);
+        try {
+            is.skipNBytes(chunkOffset);
+            if (isCompressed(path)) {
+                is = new GZIPInputStream(is, 65536);
+            }
+            is = new BufferedInputStream(is, 65536);
+            for (long i = chunkLine + 1; i < line; i++) {
+                int b;
+                while ((b = is.read()) != '\n' && b != -1) {}
+            }
+            return is;
+        } catch (IOException e) {
+            is.close();
+            throw e;
+        }
+    }
+
+    /// Copies contents of given log to output stream, decompressing it if
+    /// needed.
+    public static void copy(Path path, OutputStream os) throws IOException {
+        try (InputStream is = open(path)) {
+            is.transferTo(os);
+        }
+    }
+
+    /// Rewrites log that was written by some other program in place,
+    /// according to given policy. Returns name that the log is stored under
+    /// afterwards.
+    public static String seal(Path plainPath, LogPolicy policy) throws IOException {
+        String name = plainPath.getFileName().toString();
+        String artifactName = policy.getArtifactName(name);
+        if (artifactName.equals(name) && !policy.isCapped()) {
+            return name;
+        }
+        Path tempPath = plainPath.resolveSibling(name + ".tmp");
+        Files.move(plainPath, tempPath);
+        try (InputStream is = Files.newInputStream(tempPath);
+                LogWriter writer = new LogWriter(plainPath.resolveSibling(artifactName), policy)) {
+            is.transferTo(writer);
+        }
+        Files.delete(tempPath);
+        return artifactName;
+    }
+}
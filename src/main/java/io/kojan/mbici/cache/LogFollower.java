@@ -0,0 +1,107 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/// Reads log that is still being written, as far as it was written so far.
+///
+/// Compressed logs are decompressed member by member, as [LogWriter] writes
+/// them. Members are flushed as lines are written, so their data can be read
+/// before the member is finished.
+public class LogFollower implements Closeable {
+    /// Size of gzip header written by [java.util.zip.GZIPOutputStream].
+    private static final int GZIP_HEADER_SIZE = 10;
+
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private final InputStream file;
+    private final Inflater inflater;
+    private final byte[] input = new byte[65536];
+    private int inputPos;
+    private int inputLimit;
+    private int skip = GZIP_HEADER_SIZE;
+    private boolean inTrailer;
+
+    private LogFollower(Path path) throws IOException {
+        file = Files.newInputStream(path);
+        boolean compressed = path.getFileName().toString().endsWith(LogFiles.GZIP_SUFFIX);
+        inflater = compressed ? new Inflater(true) : null;
+    }
+
+    /// Opens log with given path, which may be compressed.
+    public static LogFollower open(Path path) throws IOException {
+        return new LogFollower(path);
+    }
+
+    /// Reads log contents into given buffer. Returns number of bytes read,
+    /// which is 0 if nothing more was written yet.
+    public int read(byte[] b) throws IOException {
+        if (inflater == null) {
+            return Math.max(0, file.read(b));
+        }
+        while (true) {
+            if (inputPos == inputLimit) {
+                int n = file.read(input);
+                if (n <= 0) {
+                    return 0;
+                }
+                inputPos = 0;
+                inputLimit = n;
+            }
+            if (skip > 0) {
+                int n = Math.min(skip, inputLimit - inputPos);
+                inputPos += n;
+                skip -= n;
+                if (skip == 0 && inTrailer) {
+                    inTrailer = false;
+                    skip = GZIP_HEADER_SIZE;
+                }
+                continue;
+            }
+            inflater.setInput(input, inputPos, inputLimit - inputPos);
+            int n;
+            try {
+                n = inflater.inflate(b);
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted compressed log", e);
+            }
+            inputPos = inputLimit - inflater.getRemaining();
+            if (inflater.finished()) {
+                inflater.reset();
+                inTrailer = true;
+                skip = GZIP_TRAILER_SIZE;
+            }
+            if (n > 0) {
+                return n;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (inflater != null) {
+            inflater.end();
+        }
+        file.close();
+    }
+}
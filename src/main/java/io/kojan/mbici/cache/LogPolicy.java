@@ -0,0 +1,54 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.cache;
+
+/// Describes how task logs are captured. When either head or tail size is
+/// non-zero, only given number of bytes from the beginning and the end of log
+/// are kept and the middle part is replaced with a marker.
+public class LogPolicy {
+    public static final LogPolicy DEFAULT = new LogPolicy(LogCompression.NONE, 0, 0);
+
+    private final LogCompression compression;
+    private final long headSize;
+    private final long tailSize;
+
+    public LogPolicy(LogCompression compression, long headSize, long tailSize) {
+        this.compression = compression;
+        this.headSize = headSize;
+        this.tailSize = tailSize;
+    }
+
+    public LogCompression getCompression() {
+        return compression;
+    }
+
+    public long getHeadSize() {
+        return headSize;
+    }
+
+    public long getTailSize() {
+        return tailSize;
+    }
+
+    public boolean isCapped() {
+        return headSize > 0 || tailSize > 0;
+    }
+
+    /// Returns name of artifact that log with given name is stored as.
+    public String getArtifactName(String logName) {
+        return compression == LogCompression.GZIP ? logName + LogFiles.GZIP_SUFFIX : logName;
+    }
+}
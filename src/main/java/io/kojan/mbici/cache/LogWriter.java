@@ -0,0 +1,248 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/// Streams captured output into a log file according to a [LogPolicy].
+///
+/// Compressed logs are written as a sequence of gzip members, each holding
+/// roughly [#CHUNK_SIZE] bytes of whole lines. Start of every member except
+/// the first one is recorded in an index file next to the log, so that
+/// readers can decompress the log starting at any of them.
+///
+/// Tail of capped logs is kept in a temporary file next to the log rather
+/// than in memory, as it may be big and many commands run at the same time.
+public class LogWriter extends OutputStream {
+    static final int CHUNK_SIZE = 1 << 20;
+    private static final int COPY_BUFFER_SIZE = 65536;
+    private static final long FLUSH_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final Path path;
+    private final LogPolicy policy;
+    private final CountingOutputStream file;
+    private OutputStream out;
+    private final List<String> index = new ArrayList<>();
+    private long lines;
+    private long offset;
+    private long chunkStart;
+    private long headLeft;
+    private final long tailSize;
+    private FileChannel tail;
+    private long tailPos;
+    private long tailCount;
+    private long omitted;
+    private long lastFlush = System.nanoTime();
+
+    public LogWriter(Path path, LogPolicy policy) throws IOException {
+        this.path = path;
+        this.policy = policy;
+        file =
+                new CountingOutputStream(
+                        new BufferedOutputStream(
+                                Files.newOutputStream(path, StandardOpenOption.CREATE_NEW)));
+        out = openChunk();
+        headLeft = policy.getHeadSize();
+        tailSize = policy.getTailSize();
+    }
+
+    private OutputStream openChunk() throws IOException {
+        if (policy.getCompression() == LogCompression.GZIP) {
+            return new GZIPOutputStream(file, 65536, true);
+        }
+        return file;
+    }
+
+    private void nextChunk() throws IOException {
+        if (out instanceof GZIPOutputStream gzip) {
+            gzip.finish();
+        }
+        index.add(lines + " " + file.getCount() + " " + offset);
+        chunkStart = offset;
+        out = openChunk();
+    }
+
+    /// Writes data to the log file, starting a new chunk at the first line
+    /// boundary past chunk size.
+    private void emit(byte[] b, int off, int len) throws IOException {
+        int start = off;
+        for (int i = off; i < off + len; i++) {
+            if (b[i] == '\n') {
+                lines++;
+                if (offset + i + 1 - start - chunkStart >= CHUNK_SIZE) {
+                    out.write(b, start, i + 1 - start);
+                    offset += i + 1 - start;
+                    start = i + 1;
+                    nextChunk();
+                }
+            }
+        }
+        out.write(b, start, off + len - start);
+        offset += off + len - start;
+    }
+
+    private void writeTail(byte[] b, int off, int len, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        while (buffer.hasRemaining()) {
+            position += tail.write(buffer, position);
+        }
+    }
+
+    /// Keeps data in a ring buffer backed by temporary file.
+    private void keepTail(byte[] b, int off, int len) throws IOException {
+        if (tailSize == 0) {
+            omitted += len;
+            return;
+        }
+        if (tail == null) {
+            tail =
+                    FileChannel.open(
+                            path.resolveSibling(path.getFileName() + ".tail"),
+                            StandardOpenOption.CREATE_NEW,
+                            StandardOpenOption.READ,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        if (len >= tailSize) {
+            omitted += tailCount + len - tailSize;
+            writeTail(b, (int) (off + len - tailSize), (int) tailSize, 0);
+            tailPos = 0;
+            tailCount = tailSize;
+            return;
+        }
+        omitted += Math.max(0, tailCount + len - tailSize);
+        int first = (int) Math.min(len, tailSize - tailPos);
+        writeTail(b, off, first, tailPos);
+        writeTail(b, off + first, len - first, 0);
+        tailPos = (tailPos + len) % tailSize;
+        tailCount = Math.min(tailSize, tailCount + len);
+    }
+
+    private void emitTail(long position, long len) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        while (len > 0) {
+            buffer.clear().limit((int) Math.min(len, buffer.capacity()));
+            int n = tail.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("Log tail was truncated");
+            }
+            emit(buffer.array(), 0, n);
+            position += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (!policy.isCapped()) {
+            emit(b, off, len);
+        } else {
+            int head = (int) Math.min(len, headLeft);
+            emit(b, off, head);
+            headLeft -= head;
+            if (head < len) {
+                keepTail(b, off + head, len - head);
+            }
+        }
+        // Logs of running commands can be followed, so they are flushed
+        // every now and then, but not on every write, which would hurt
+        // compression
+        long now = System.nanoTime();
+        if (now - lastFlush >= FLUSH_INTERVAL_NANOS) {
+            out.flush();
+            lastFlush = now;
+        }
+    }
+
+    /// Writes given text to the log, for messages that are not output of
+    /// the command itself.
+    public void write(String text) throws IOException {
+        write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (omitted > 0) {
+            byte[] marker =
+                    ("\n[... " + omitted + " bytes of log omitted ...]\n")
+                            .getBytes(StandardCharsets.UTF_8);
+            emit(marker, 0, marker.length);
+        }
+        if (tail != null) {
+            try (FileChannel channel = tail) {
+                long start = (tailPos - tailCount + tailSize) % tailSize;
+                long first = Math.min(tailCount, tailSize - start);
+                emitTail(start, first);
+                emitTail(0, tailCount - first);
+            }
+            tail = null;
+            tailCount = 0;
+        }
+        if (out instanceof GZIPOutputStream gzip) {
+            gzip.finish();
+        }
+        file.close();
+        if (!index.isEmpty()) {
+            Files.write(LogFiles.getIndexPath(path), index);
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
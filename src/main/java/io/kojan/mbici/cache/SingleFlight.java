@@ -0,0 +1,89 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.cache;
+
+import io.kojan.workflow.TaskTermination;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/// Ensures that only one fetch of given cache entry runs at a time.
+///
+/// Fetches are serialized per key, both between threads of this process and,
+/// through lock files, between processes sharing the same cache directory.
+/// Later requesters wait for the first fetch to finish, and are then expected
+/// to find the entry already present in the cache instead of fetching it again.
+public class SingleFlight {
+    private final Path lockDir;
+    private final Map<String, Flight> flights = new HashMap<>();
+
+    /// Fetch of a cache entry.
+    public interface Action {
+        void run() throws TaskTermination, IOException;
+    }
+
+    private static class Flight {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users;
+    }
+
+    public SingleFlight(Path lockDir) {
+        this.lockDir = lockDir;
+    }
+
+    private synchronized Flight join(String key) {
+        Flight flight = flights.computeIfAbsent(key, k -> new Flight());
+        flight.users++;
+        return flight;
+    }
+
+    private synchronized void leave(String key, Flight flight) {
+        if (--flight.users == 0) {
+            flights.remove(key);
+        }
+    }
+
+    public void run(String key, Action action) throws TaskTermination, IOException {
+        Flight flight = join(key);
+        try {
+            // File locks are held by the whole process, so threads have to be
+            // serialized before they try to lock the file
+            flight.lock.lock();
+            try {
+                Files.createDirectories(lockDir);
+                Path lockPath = lockDir.resolve(key + ".lock");
+                try (FileChannel channel =
+                                FileChannel.open(
+                                        lockPath,
+                                        StandardOpenOption.CREATE,
+                                        StandardOpenOption.WRITE);
+                        FileLock lock = channel.lock()) {
+                    action.run();
+                }
+            } finally {
+                flight.lock.unlock();
+            }
+        } finally {
+            leave(key, flight);
+        }
+    }
+}
@@ -19,6 +19,8 @@ import io.kojan.workflow.FinishedTask;
 import io.kojan.workflow.WorkflowExecutionListener;
 import io.kojan.workflow.model.Task;
 import io.kojan.workflow.model.Workflow;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 /// @author Mikolaj Izdebski
 abstract class AbstractDumper extends Thread implements WorkflowExecutionListener {
@@ -36,9 +38,24 @@ abstract class AbstractDumper extends Thread implements WorkflowExecutionListene
         }
     }
 
-    private synchronized void terminate() {
+    /// Queues final workflow to be dumped and lets the thread exit afterwards.
+    private synchronized void terminate(Workflow wf) {
+        queue = wf;
         terminate = true;
-        notify();
+        notifyAll();
+    }
+
+    protected synchronized boolean isTerminating() {
+        return terminate;
+    }
+
+    /// Waits for given time, but no longer than until workflow finishes.
+    protected synchronized void pause(Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        long left;
+        while (!terminate && (left = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+        }
     }
 
     private synchronized void dumpEventually(Workflow wf) {
@@ -46,6 +63,14 @@ abstract class AbstractDumper extends Thread implements WorkflowExecutionListene
         notify();
     }
 
+    /// Queues workflow to be dumped again, unless a newer one is already queued.
+    protected synchronized void retryEventually(Workflow wf) {
+        if (queue == null) {
+            queue = wf;
+            notify();
+        }
+    }
+
     protected abstract void dump(Workflow workflow) throws Exception;
 
     @Override
@@ -92,11 +117,11 @@ abstract class AbstractDumper extends Thread implements WorkflowExecutionListene
 
     @Override
     public void workflowSucceeded(Workflow workflow) {
-        terminate();
+        terminate(workflow);
     }
 
     @Override
     public void workflowFailed(Workflow workflow) {
-        terminate();
+        terminate(workflow);
     }
 }
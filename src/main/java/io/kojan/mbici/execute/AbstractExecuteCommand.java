@@ -17,15 +17,31 @@ package io.kojan.mbici.execute;
 
 import io.kojan.mbici.AbstractCommand;
 import io.kojan.mbici.cache.CacheManager;
+import io.kojan.mbici.cache.LogCompression;
+import io.kojan.mbici.cache.LogPolicy;
+import io.kojan.mbici.model.Plan;
+import io.kojan.mbici.model.Resources;
+import io.kojan.mbici.tasks.Host;
+import io.kojan.mbici.tasks.Kubernetes;
+import io.kojan.mbici.tasks.MockChroot;
+import io.kojan.mbici.tasks.MockOptions;
 import io.kojan.workflow.TaskHandlerFactory;
 import io.kojan.workflow.TaskThrottle;
 import io.kojan.workflow.WorkflowExecutor;
+import io.kojan.workflow.model.Task;
 import io.kojan.workflow.model.Workflow;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
 import picocli.CommandLine.Option;
 
 /// @author Mikolaj Izdebski
 public abstract class AbstractExecuteCommand extends AbstractCommand {
+    /// Max time to wait for webhook to be notified about final results.
+    private static final Duration WEBHOOK_FLUSH_TIMEOUT = Duration.ofMinutes(3);
+
     @Option(
             names = {"-w", "--workflow"},
             required = true,
@@ -70,6 +86,46 @@ public abstract class AbstractExecuteCommand extends AbstractCommand {
             description = "Max number of RPM build tasks running at the same time.")
     protected Integer maxRpmTasks = 2;
 
+    @Option(
+            names = {"--throttle"},
+            description = "Task throttling mode, one of: ${COMPLETION-CANDIDATES}.")
+    protected ThrottleMode throttleMode = ThrottleMode.FIXED;
+
+    @Option(
+            names = {"--scheduling"},
+            description = "Order in which ready tasks get capacity: ${COMPLETION-CANDIDATES}.")
+    protected SchedulingMode schedulingMode = SchedulingMode.FIFO;
+
+    @Option(
+            names = {"--persistence"},
+            description = "How workflow state is saved: ${COMPLETION-CANDIDATES}.")
+    protected PersistenceMode persistenceMode = PersistenceMode.SNAPSHOT;
+
+    @Option(
+            names = {"--cpu-budget"},
+            description = "Number of CPUs that resource throttle can use, defaults to all CPUs.")
+    protected Double cpuBudget;
+
+    @Option(
+            names = {"--memory-budget"},
+            description = "Memory that resource throttle can use, defaults to 90% of total RAM.")
+    protected String memoryBudget;
+
+    @Option(
+            names = {"--disk-budget"},
+            description = "Disk space that resource throttle can use, defaults to free space.")
+    protected String diskBudget;
+
+    @Option(
+            names = {"-m", "--plan"},
+            description = "Path to a Plan in XML format, used to look up component resources.")
+    protected Path planPath;
+
+    @Option(
+            names = {"--clean-work-dirs"},
+            description = "Delete work dirs of successful tasks as soon as they finish.")
+    protected boolean cleanWorkDirs;
+
     @Option(
             names = {"-B", "--batch-mode"},
             description = "Run in non-interactive mode.")
@@ -85,6 +141,54 @@ public abstract class AbstractExecuteCommand extends AbstractCommand {
             description = "Bearer token to use for webhook authorization.")
     protected String webhookToken;
 
+    @Option(
+            names = {"--webhook-mode"},
+            description = "What is sent to webhook: ${COMPLETION-CANDIDATES}.")
+    protected WebHookMode webhookMode = WebHookMode.FULL;
+
+    @Option(
+            names = {"--webhook-batch-window"},
+            description = "Seconds to coalesce Workflow changes for before notifying webhook.")
+    protected Integer webhookBatchWindow = 10;
+
+    @Option(
+            names = {"--mock-chroot"},
+            description = "How mock buildroots are provided: ${COMPLETION-CANDIDATES}.")
+    protected MockChroot mockChroot = MockChroot.FRESH;
+
+    @Option(
+            names = {"--mock-tmpfs-size"},
+            description =
+                    "Size of tmpfs for mock buildroots, 0 to build on disk. Defaults to share"
+                            + " of available memory, or to building on disk with resource"
+                            + " throttle.")
+    protected String mockTmpfsSize;
+
+    @Option(
+            names = {"--mock-nosync"},
+            description = "Make fsync a no-op in mock buildroots.")
+    protected boolean mockNosync;
+
+    @Option(
+            names = {"--mock-dnf-cache"},
+            description = "Share dnf metadata cache between mock builds.")
+    protected boolean mockDnfCache;
+
+    @Option(
+            names = {"--log-compression"},
+            description = "How command logs are compressed: ${COMPLETION-CANDIDATES}.")
+    protected LogCompression logCompression = LogCompression.NONE;
+
+    @Option(
+            names = {"--log-head-size"},
+            description = "Keep only given size of beginning of logs, together with their tail.")
+    protected String logHeadSize;
+
+    @Option(
+            names = {"--log-tail-size"},
+            description = "Keep only given size of end of logs, together with their head.")
+    protected String logTailSize;
+
     public Path getWorkflowPath() {
         return workflowPath;
     }
@@ -149,6 +253,70 @@ public abstract class AbstractExecuteCommand extends AbstractCommand {
         this.maxRpmTasks = maxRpmTasks;
     }
 
+    public ThrottleMode getThrottleMode() {
+        return throttleMode;
+    }
+
+    public void setThrottleMode(ThrottleMode throttleMode) {
+        this.throttleMode = throttleMode;
+    }
+
+    public SchedulingMode getSchedulingMode() {
+        return schedulingMode;
+    }
+
+    public void setSchedulingMode(SchedulingMode schedulingMode) {
+        this.schedulingMode = schedulingMode;
+    }
+
+    public PersistenceMode getPersistenceMode() {
+        return persistenceMode;
+    }
+
+    public void setPersistenceMode(PersistenceMode persistenceMode) {
+        this.persistenceMode = persistenceMode;
+    }
+
+    public Double getCpuBudget() {
+        return cpuBudget;
+    }
+
+    public void setCpuBudget(Double cpuBudget) {
+        this.cpuBudget = cpuBudget;
+    }
+
+    public String getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(String memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public String getDiskBudget() {
+        return diskBudget;
+    }
+
+    public void setDiskBudget(String diskBudget) {
+        this.diskBudget = diskBudget;
+    }
+
+    public Path getPlanPath() {
+        return planPath;
+    }
+
+    public void setPlanPath(Path planPath) {
+        this.planPath = planPath;
+    }
+
+    public boolean isCleanWorkDirs() {
+        return cleanWorkDirs;
+    }
+
+    public void setCleanWorkDirs(boolean cleanWorkDirs) {
+        this.cleanWorkDirs = cleanWorkDirs;
+    }
+
     public boolean isBatchMode() {
         return batchMode;
     }
@@ -173,39 +341,203 @@ public abstract class AbstractExecuteCommand extends AbstractCommand {
         this.webhookToken = webhookToken;
     }
 
+    public WebHookMode getWebhookMode() {
+        return webhookMode;
+    }
+
+    public void setWebhookMode(WebHookMode webhookMode) {
+        this.webhookMode = webhookMode;
+    }
+
+    public Integer getWebhookBatchWindow() {
+        return webhookBatchWindow;
+    }
+
+    public void setWebhookBatchWindow(Integer webhookBatchWindow) {
+        this.webhookBatchWindow = webhookBatchWindow;
+    }
+
+    public MockChroot getMockChroot() {
+        return mockChroot;
+    }
+
+    public void setMockChroot(MockChroot mockChroot) {
+        this.mockChroot = mockChroot;
+    }
+
+    public String getMockTmpfsSize() {
+        return mockTmpfsSize;
+    }
+
+    public void setMockTmpfsSize(String mockTmpfsSize) {
+        this.mockTmpfsSize = mockTmpfsSize;
+    }
+
+    public boolean isMockNosync() {
+        return mockNosync;
+    }
+
+    public void setMockNosync(boolean mockNosync) {
+        this.mockNosync = mockNosync;
+    }
+
+    public boolean isMockDnfCache() {
+        return mockDnfCache;
+    }
+
+    public void setMockDnfCache(boolean mockDnfCache) {
+        this.mockDnfCache = mockDnfCache;
+    }
+
+    public LogCompression getLogCompression() {
+        return logCompression;
+    }
+
+    public void setLogCompression(LogCompression logCompression) {
+        this.logCompression = logCompression;
+    }
+
+    public String getLogHeadSize() {
+        return logHeadSize;
+    }
+
+    public void setLogHeadSize(String logHeadSize) {
+        this.logHeadSize = logHeadSize;
+    }
+
+    public String getLogTailSize() {
+        return logTailSize;
+    }
+
+    public void setLogTailSize(String logTailSize) {
+        this.logTailSize = logTailSize;
+    }
+
     private CacheManager cacheManager;
 
     public CacheManager getCacheManager() {
         return cacheManager;
     }
 
-    protected void initialize() {}
+    protected void initialize() throws Exception {}
+
+    protected void shutdown() throws Exception {}
+
+    private Comparator<Task> createPriority(Workflow workflow) throws IOException {
+        if (schedulingMode == SchedulingMode.CRITICAL_PATH) {
+            DurationEstimator estimator =
+                    new DurationEstimator(cacheManager.getHistoryStore());
+            estimator.addResults(workflow);
+            CriticalPath criticalPath = new CriticalPath(workflow.getTasks(), estimator);
+            info("Estimated critical path length: " + criticalPath.getLength());
+            return Comparator.comparing(criticalPath::getRank).reversed();
+        }
+        return (a, b) -> 0;
+    }
+
+    private TaskThrottle createThrottle(Workflow workflow) throws Exception {
+        Comparator<Task> priority = createPriority(workflow);
+        TaskThrottle throttle =
+                new ThrottleImpl(maxCheckoutTasks, maxSrpmTasks, maxRpmTasks, priority);
+        if (throttleMode == ThrottleMode.RESOURCE) {
+            Plan plan = planPath != null ? Plan.readFromXML(planPath) : null;
+            TaskWeight budget =
+                    new TaskWeight(
+                            cpuBudget != null ? cpuBudget : Host.getCpuCount(),
+                            memoryBudget != null
+                                    ? Resources.parseBytes(memoryBudget)
+                                    : Host.getTotalMemory() / 10 * 9,
+                            diskBudget != null
+                                    ? Resources.parseBytes(diskBudget)
+                                    : Host.getUsableDiskSpace(workDir));
+            info("Using resource throttle with budget of " + budget);
+            TaskWeigher weigher = new TaskWeigher(plan, cacheManager.getHistoryStore());
+            throttle = new ResourceThrottle(throttle, weigher, budget, priority);
+        }
+        if (throttleMode == ThrottleMode.ADAPTIVE) {
+            Kubernetes kubernetes = io.kojan.mbici.tasks.Command.kubernetes;
+            if (kubernetes != null && kubernetes.hasApiClient()) {
+                info("Using adaptive throttle for Kubernetes Pods");
+                throttle = new AdaptiveThrottle(throttle, kubernetes, priority);
+            } else {
+                error("Adaptive throttle requires Kubernetes API access, using fixed limits");
+            }
+        }
+        return throttle;
+    }
 
     @Override
     public Integer call() throws Exception {
-        Workflow wfd = Workflow.readFromXML(workflowPath);
+        WorkflowJournal journal = new WorkflowJournal(workflowPath);
+        Workflow wfd = WorkflowJournal.read(workflowPath);
+        // Start from a clean journal in case previous run was interrupted
+        journal.compact(wfd);
         cacheManager = new CacheManager(resultDir, cacheDir, workDir);
+        io.kojan.mbici.tasks.Command.logPolicy =
+                new LogPolicy(
+                        logCompression,
+                        logHeadSize != null ? Resources.parseBytes(logHeadSize) : 0,
+                        logTailSize != null ? Resources.parseBytes(logTailSize) : 0);
         initialize();
-        TaskHandlerFactory handlerFactory = new TaskHandlerFactoryImpl(cacheManager);
-        TaskThrottle throttle = new ThrottleImpl(maxCheckoutTasks, maxSrpmTasks, maxRpmTasks);
+        MockOptions mockOptions = new MockOptions();
+        mockOptions.setChroot(mockChroot);
+        if (mockTmpfsSize != null) {
+            mockOptions.setTmpfsSize(Resources.parseBytes(mockTmpfsSize));
+        } else if (throttleMode == ThrottleMode.RESOURCE
+                && io.kojan.mbici.tasks.Command.kubernetes == null) {
+            // Resource throttle admits builds by memory their processes use,
+            // which does not include tmpfs, so memory would be overcommitted
+            mockOptions.setTmpfsSize(0L);
+        }
+        // Builds running at the same time share available memory
+        mockOptions.setConcurrency(maxSrpmTasks + maxRpmTasks);
+        mockOptions.setNosync(mockNosync);
+        mockOptions.setDnfCache(mockDnfCache);
+        TaskHandlerFactory handlerFactory = new TaskHandlerFactoryImpl(cacheManager, mockOptions);
+        TaskThrottle throttle = createThrottle(wfd);
         WorkflowExecutor wfe =
                 new WorkflowExecutor(wfd, handlerFactory, cacheManager, throttle, batchMode);
-        Dumper dumper = new Dumper(workflowPath);
+        Dumper dumper = new Dumper(journal, persistenceMode, wfd);
         dumper.setDaemon(true);
         dumper.start();
         wfe.addExecutionListener(dumper);
+        AbstractDumper webhook = null;
         if (webhookUrl != null) {
-            WebHookDumper webhook = new WebHookDumper(webhookUrl, webhookToken);
+            if (webhookMode == WebHookMode.DELTA) {
+                Duration batchWindow = Duration.ofSeconds(webhookBatchWindow);
+                webhook = new DeltaWebHookDumper(webhookUrl, webhookToken, batchWindow);
+            } else {
+                webhook = new WebHookDumper(webhookUrl, webhookToken);
+            }
             webhook.setDaemon(true);
             webhook.start();
             wfe.addExecutionListener(webhook);
         }
+        wfe.addExecutionListener(new HistoryRecorder(cacheManager.getHistoryStore()));
+        wfe.addExecutionListener(new RunningTaskRecorder(workflowPath));
+        if (cleanWorkDirs) {
+            wfe.addExecutionListener(new WorkDirCleaner(cacheManager));
+        }
         if (linkerDir != null) {
             Linker linker = new Linker(linkerDir);
             wfe.addExecutionListener(linker);
         }
-        Workflow wf = wfe.execute();
-        wf.writeToXML(workflowPath);
+        Workflow wf;
+        try {
+            wf = wfe.execute();
+        } finally {
+            shutdown();
+        }
+        // Dumper may still be writing the final workflow
+        dumper.join();
+        journal.compact(wf);
+        if (webhook != null && !webhook.join(WEBHOOK_FLUSH_TIMEOUT)) {
+            error("Timed out waiting for webhook to be notified about final results");
+        }
+        // Keep a copy for garbage collector to know which results are still in use
+        Path archivePath =
+                cacheManager.getWorkflowArchiveDir().resolve(System.currentTimeMillis() + ".xml");
+        Files.copy(workflowPath, archivePath);
         return 0;
     }
 }
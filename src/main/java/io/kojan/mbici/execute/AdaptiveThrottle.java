@@ -0,0 +1,136 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.execute;
+
+import io.kojan.mbici.tasks.Kubernetes;
+import io.kojan.mbici.tasks.RpmTaskHandler;
+import io.kojan.mbici.tasks.SrpmTaskHandler;
+import io.kojan.workflow.TaskThrottle;
+import io.kojan.workflow.model.Task;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/// Throttle that adapts number of concurrently running build Pods to how fast
+/// Kubernetes cluster schedules them.
+///
+/// Concurrency limit grows by one every control period in which all slots are
+/// used and the cluster keeps up, and is halved when Pods pile up as Pending,
+/// take too long to start, or namespace ResourceQuota runs out. Limits of the
+/// delegate throttle still apply on top of it.
+class AdaptiveThrottle implements TaskThrottle {
+    private static final Duration CONTROL_PERIOD = Duration.ofSeconds(10);
+    private static final Duration DECREASE_COOLDOWN = Duration.ofSeconds(30);
+    private static final Duration TARGET_START_LATENCY = Duration.ofSeconds(30);
+    private static final double INITIAL_LIMIT = 4;
+    private static final double DECREASE_FACTOR = 0.5;
+
+    private static final Set<String> POD_HANDLERS =
+            Set.of(SrpmTaskHandler.class.getName(), RpmTaskHandler.class.getName());
+
+    private final TaskThrottle delegate;
+    private final Kubernetes kubernetes;
+    private final Comparator<Task> priority;
+    private final List<Task> waiting = new ArrayList<>();
+    private double limit = INITIAL_LIMIT;
+    private int running;
+    private long lastDecrease;
+
+    public AdaptiveThrottle(
+            TaskThrottle delegate, Kubernetes kubernetes, Comparator<Task> priority) {
+        this.delegate = delegate;
+        this.kubernetes = kubernetes;
+        this.priority = priority;
+        this.lastDecrease = System.nanoTime() - DECREASE_COOLDOWN.toNanos();
+        Thread controller = new Thread(this::control, "adaptive-throttle");
+        controller.setDaemon(true);
+        controller.start();
+    }
+
+    private void control() {
+        while (true) {
+            try {
+                Thread.sleep(CONTROL_PERIOD);
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Query the cluster without holding the lock
+            int pending = kubernetes.getPendingPodCount();
+            Duration startLatency = kubernetes.takeStartLatency();
+            int quotaHeadroom = kubernetes.getQuotaHeadroom();
+            adjust(pending, startLatency, quotaHeadroom);
+        }
+    }
+
+    private synchronized void adjust(int pending, Duration startLatency, int quotaHeadroom) {
+        // Small backlog of pending Pods is fine, it keeps the cluster saturated
+        int tolerance = Math.max(1, (int) (limit / 10));
+        boolean congested =
+                pending > tolerance
+                        || startLatency.compareTo(TARGET_START_LATENCY) > 0
+                        || quotaHeadroom <= 0;
+        long now = System.nanoTime();
+        if (congested) {
+            // Pods created before the last decrease may still be pending
+            if (now - lastDecrease >= DECREASE_COOLDOWN.toNanos()) {
+                limit = Math.max(1, limit * DECREASE_FACTOR);
+                lastDecrease = now;
+            }
+        } else if (!waiting.isEmpty() && running >= (int) limit) {
+            limit += 1;
+        }
+        notifyAll();
+    }
+
+    @Override
+    public void acquireCapacity(Task task) {
+        if (POD_HANDLERS.contains(task.getHandler())) {
+            boolean interrupted = false;
+            synchronized (this) {
+                // Stable sort keeps tasks of equal priority in arrival order
+                waiting.add(task);
+                waiting.sort(priority);
+                while (running >= (int) limit || waiting.getFirst() != task) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                waiting.removeFirst();
+                running++;
+                notifyAll();
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        delegate.acquireCapacity(task);
+    }
+
+    @Override
+    public void releaseCapacity(Task task) {
+        delegate.releaseCapacity(task);
+        if (POD_HANDLERS.contains(task.getHandler())) {
+            synchronized (this) {
+                running--;
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.execute;
+
+import io.kojan.workflow.model.Task;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Critical path analysis of Workflow task graph.
+///
+/// Rank of a task is the estimated duration of the longest chain of tasks
+/// that starts with given task and follows reverse dependencies, that is the
+/// minimal time needed to finish the task and everything that depends on it.
+public class CriticalPath {
+    private final Map<String, Task> tasksById = new LinkedHashMap<>();
+    private final Map<String, List<Task>> dependents = new LinkedHashMap<>();
+    private final Map<String, Duration> ranks = new LinkedHashMap<>();
+    private final DurationEstimator estimator;
+
+    public CriticalPath(List<Task> tasks, DurationEstimator estimator) {
+        this.estimator = estimator;
+        for (Task task : tasks) {
+            tasksById.put(task.getId(), task);
+            dependents.put(task.getId(), new ArrayList<>());
+        }
+        for (Task task : tasks) {
+            for (String dep : task.getDependencies()) {
+                List<Task> list = dependents.get(dep);
+                if (list != null) {
+                    list.add(task);
+                }
+            }
+        }
+    }
+
+    public synchronized Duration getRank(Task task) {
+        Duration rank = ranks.get(task.getId());
+        if (rank == null) {
+            Duration longestDependent = Duration.ZERO;
+            for (Task dependent : dependents.getOrDefault(task.getId(), List.of())) {
+                Duration dependentRank = getRank(dependent);
+                if (dependentRank.compareTo(longestDependent) > 0) {
+                    longestDependent = dependentRank;
+                }
+            }
+            rank = estimator.estimate(task).plus(longestDependent);
+            ranks.put(task.getId(), rank);
+        }
+        return rank;
+    }
+
+    public Duration getLength() {
+        Duration length = Duration.ZERO;
+        for (Task task : tasksById.values()) {
+            Duration rank = getRank(task);
+            if (rank.compareTo(length) > 0) {
+                length = rank;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,156 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.execute;
+
+import io.kojan.workflow.model.Result;
+import io.kojan.workflow.model.Task;
+import io.kojan.workflow.model.Workflow;
+import io.kojan.workflow.model.WorkflowBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/// Notifies HTTP webhook about results it has not seen yet.
+///
+/// Full workflow is PUT on first contact and after any error, as the webhook
+/// may have lost some updates. Otherwise only results not yet acknowledged by
+/// the webhook are sent with PATCH, as a Workflow that contains no tasks.
+/// Events arriving within batch window after an upload are coalesced into
+/// the next one, except for the final results, which are sent right away.
+/// Request bodies are gzip-compressed.
+class DeltaWebHookDumper extends AbstractDumper {
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+    /// Max number of attempts to send final results after workflow finishes.
+    private static final int MAX_FINAL_ATTEMPTS = 3;
+
+    private final String url;
+    private final String token;
+    private final Duration batchWindow;
+    private final HttpClient client;
+    private final Set<String> acknowledgedResultIds = new HashSet<>();
+    private boolean snapshotNeeded = true;
+    private Duration backoff = MIN_BACKOFF;
+    private int finalAttempts;
+
+    public DeltaWebHookDumper(String url, String token, Duration batchWindow) {
+        this.url = url;
+        this.token = token;
+        this.batchWindow = batchWindow;
+
+        client =
+                HttpClient.newBuilder()
+                        .version(Version.HTTP_1_1)
+                        .followRedirects(Redirect.NORMAL)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (GZIPOutputStream gos = new GZIPOutputStream(bos)) {
+            gos.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bos.toByteArray();
+    }
+
+    private boolean send(String method, String xml) throws InterruptedException {
+        try {
+            var reqBuilder = HttpRequest.newBuilder();
+            reqBuilder.method(method, BodyPublishers.ofByteArray(gzip(xml)));
+            reqBuilder.uri(URI.create(url));
+            reqBuilder.timeout(Duration.ofSeconds(60));
+            reqBuilder.header("Content-Type", "text/xml");
+            reqBuilder.header("Content-Encoding", "gzip");
+            if (token != null) {
+                reqBuilder.header("Authorization", "Bearer " + token);
+            }
+            HttpResponse<Void> resp = client.send(reqBuilder.build(), BodyHandlers.discarding());
+            if (resp.statusCode() / 100 == 2) {
+                return true;
+            }
+            System.err.println("Webhook resp code " + resp.statusCode());
+        } catch (IOException e) {
+            System.err.println("Webhook I/O error: " + e.getMessage());
+        }
+        return false;
+    }
+
+    @Override
+    protected void dump(Workflow workflow) throws Exception {
+        List<Result> sent = new ArrayList<>();
+        boolean ok;
+        if (snapshotNeeded) {
+            sent.addAll(workflow.getResults());
+            ok = send("PUT", workflow.toXML());
+        } else {
+            WorkflowBuilder delta = new WorkflowBuilder();
+            for (Result result : workflow.getResults()) {
+                if (!acknowledgedResultIds.contains(result.getId())) {
+                    delta.addResult(result);
+                    sent.add(result);
+                }
+            }
+            if (sent.isEmpty()) {
+                return;
+            }
+            ok = send("PATCH", delta.build().toXML());
+        }
+
+        if (ok) {
+            if (snapshotNeeded) {
+                acknowledgedResultIds.clear();
+                snapshotNeeded = false;
+            }
+            for (Result result : sent) {
+                acknowledgedResultIds.add(result.getId());
+            }
+            backoff = MIN_BACKOFF;
+            pause(batchWindow);
+        } else {
+            snapshotNeeded = true;
+            if (isTerminating() && ++finalAttempts >= MAX_FINAL_ATTEMPTS) {
+                System.err.println("Webhook was not notified about final results");
+                return;
+            }
+            pause(backoff);
+            backoff = backoff.multipliedBy(2);
+            if (backoff.compareTo(MAX_BACKOFF) > 0) {
+                backoff = MAX_BACKOFF;
+            }
+            retryEventually(workflow);
+        }
+    }
+
+    @Override
+    public void taskRunning(Workflow workflow, Task task) {
+        // Running tasks are not part of the delta
+    }
+}
@@ -15,27 +15,52 @@
  */
 package io.kojan.mbici.execute;
 
+import io.kojan.workflow.model.Result;
 import io.kojan.workflow.model.Workflow;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /// @author Mikolaj Izdebski
 class Dumper extends AbstractDumper {
-    private final Path workflowPath;
+    /// Max number of journal records before the journal is compacted.
+    private static final int COMPACTION_INTERVAL = 500;
 
-    public Dumper(Path workflowPath) {
-        this.workflowPath = workflowPath;
+    private final WorkflowJournal journal;
+    private final PersistenceMode persistenceMode;
+    private final Set<String> journaledResultIds = new HashSet<>();
+    private int journalSize;
+
+    public Dumper(WorkflowJournal journal, PersistenceMode persistenceMode, Workflow initial) {
+        this.journal = journal;
+        this.persistenceMode = persistenceMode;
+        for (Result result : initial.getResults()) {
+            journaledResultIds.add(result.getId());
+        }
     }
 
     @Override
     protected void dump(Workflow workflow) throws Exception {
-        Path tempPath = workflowPath.getParent().resolve("wf.xml.tmp");
-        workflow.writeToXML(tempPath);
-        Files.move(
-                tempPath,
-                workflowPath,
-                StandardCopyOption.ATOMIC_MOVE,
-                StandardCopyOption.REPLACE_EXISTING);
+        if (persistenceMode == PersistenceMode.SNAPSHOT) {
+            journal.compact(workflow);
+            return;
+        }
+        List<Result> fresh = new ArrayList<>();
+        for (Result result : workflow.getResults()) {
+            if (journaledResultIds.add(result.getId())) {
+                fresh.add(result);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+        if (journalSize + fresh.size() > COMPACTION_INTERVAL) {
+            journal.compact(workflow);
+            journalSize = 0;
+        } else {
+            journal.append(fresh);
+            journalSize += fresh.size();
+        }
     }
 }
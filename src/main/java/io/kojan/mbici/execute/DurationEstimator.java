@@ -0,0 +1,97 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.execute;
+
+import io.kojan.mbici.cache.HistoryRecord;
+import io.kojan.mbici.cache.HistoryStore;
+import io.kojan.mbici.tasks.CheckoutTaskHandler;
+import io.kojan.mbici.tasks.GatherTaskHandler;
+import io.kojan.mbici.tasks.RepoTaskHandler;
+import io.kojan.mbici.tasks.RpmTaskHandler;
+import io.kojan.mbici.tasks.SrpmTaskHandler;
+import io.kojan.workflow.model.Result;
+import io.kojan.workflow.model.Task;
+import io.kojan.workflow.model.TaskOutcome;
+import io.kojan.workflow.model.Workflow;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/// Estimates how long tasks are going to run.
+///
+/// Durations of tasks that were already ran are taken from their results,
+/// then from task history kept across workflow runs. Other tasks are assumed
+/// to take a typical amount of time for their handler.
+public class DurationEstimator {
+    private static final Duration UNKNOWN_HANDLER_DURATION = Duration.ofMinutes(1);
+
+    private final Map<String, Duration> defaultDurations = new LinkedHashMap<>();
+    private final Map<String, Duration> knownDurations = new LinkedHashMap<>();
+    private final Map<String, Duration> elapsedDurations = new LinkedHashMap<>();
+    private final HistoryStore historyStore;
+
+    public DurationEstimator() {
+        this(null);
+    }
+
+    public DurationEstimator(HistoryStore historyStore) {
+        this.historyStore = historyStore;
+        defaultDurations.put(CheckoutTaskHandler.class.getName(), Duration.ofSeconds(30));
+        defaultDurations.put(GatherTaskHandler.class.getName(), Duration.ofMinutes(5));
+        defaultDurations.put(RepoTaskHandler.class.getName(), Duration.ofSeconds(10));
+        defaultDurations.put(SrpmTaskHandler.class.getName(), Duration.ofMinutes(1));
+        defaultDurations.put(RpmTaskHandler.class.getName(), Duration.ofMinutes(5));
+    }
+
+    public void addResults(Workflow workflow) {
+        for (Result result : workflow.getResults()) {
+            if (result.getOutcome() == TaskOutcome.SUCCESS
+                    && result.getTimeStarted() != null
+                    && result.getTimeFinished() != null) {
+                knownDurations.put(
+                        result.getTaskId(),
+                        Duration.between(result.getTimeStarted(), result.getTimeFinished()));
+            }
+        }
+    }
+
+    /// Makes estimates of given task cover only the time it still needs to
+    /// run, as it has been running for given time already.
+    public void addElapsed(String taskId, Duration elapsed) {
+        elapsedDurations.put(taskId, elapsed);
+    }
+
+    public Duration estimate(Task task) {
+        Duration duration = knownDurations.get(task.getId());
+        if (duration == null && historyStore != null) {
+            HistoryRecord record = historyStore.lookup(task.getId());
+            if (record != null) {
+                duration = record.getDuration();
+            }
+        }
+        if (duration == null) {
+            duration = defaultDurations.getOrDefault(task.getHandler(), UNKNOWN_HANDLER_DURATION);
+        }
+        Duration elapsed = elapsedDurations.get(task.getId());
+        if (elapsed != null) {
+            duration = duration.minus(elapsed);
+            if (duration.isNegative()) {
+                duration = Duration.ZERO;
+            }
+        }
+        return duration;
+    }
+}
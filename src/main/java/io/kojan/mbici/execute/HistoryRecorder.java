@@ -0,0 +1,94 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.execute;
+
+import io.kojan.mbici.cache.HistoryRecord;
+import io.kojan.mbici.cache.HistoryStore;
+import io.kojan.mbici.tasks.ResourceUsage;
+import io.kojan.workflow.FinishedTask;
+import io.kojan.workflow.WorkflowExecutionListener;
+import io.kojan.workflow.model.Result;
+import io.kojan.workflow.model.Task;
+import io.kojan.workflow.model.Workflow;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZoneId;
+
+/// Records resources used by finished tasks in the history store.
+public class HistoryRecorder implements WorkflowExecutionListener {
+    private final HistoryStore historyStore;
+
+    public HistoryRecorder(HistoryStore historyStore) {
+        this.historyStore = historyStore;
+    }
+
+    @Override
+    public void taskRunning(Workflow workflow, Task task) {
+        // Nothing to do
+    }
+
+    @Override
+    public void taskSucceeded(Workflow workflow, FinishedTask finishedTask) {
+        Task task = finishedTask.getTask();
+        Result result = finishedTask.getResult();
+        ResourceUsage usage = ResourceUsage.remove(task.getId());
+        if (result.getTimeStarted() == null || result.getTimeFinished() == null) {
+            return;
+        }
+        HistoryRecord record =
+                new HistoryRecord(
+                        task.getId(),
+                        task.getHandler(),
+                        result.getId(),
+                        result.getOutcome().name(),
+                        result.getTimeStarted().atZone(ZoneId.systemDefault()).toInstant(),
+                        Duration.between(result.getTimeStarted(), result.getTimeFinished()),
+                        usage != null ? usage.getPeakRss() : 0,
+                        usage != null ? usage.getCpuTime() : Duration.ZERO);
+        try {
+            historyStore.append(record);
+        } catch (IOException e) {
+            // History only improves scheduling, so losing a record must not
+            // affect the workflow
+            System.err.println("Unable to record history of " + task.getId() + ": " + e);
+        }
+    }
+
+    @Override
+    public void taskFailed(Workflow workflow, FinishedTask finishedTask) {
+        taskSucceeded(workflow, finishedTask);
+    }
+
+    @Override
+    public void taskReused(Workflow workflow, FinishedTask finishedTask) {
+        // Reused results were already recorded when they were produced
+    }
+
+    @Override
+    public void workflowRunning(Workflow workflow) {
+        // Nothing to do
+    }
+
+    @Override
+    public void workflowSucceeded(Workflow workflow) {
+        // Nothing to do
+    }
+
+    @Override
+    public void workflowFailed(Workflow workflow) {
+        // Nothing to do
+    }
+}
@@ -16,7 +16,12 @@
 package io.kojan.mbici.execute;
 
 import io.kojan.mbici.Main;
+import io.kojan.mbici.model.Plan;
+import io.kojan.mbici.tasks.KubeClient;
 import io.kojan.mbici.tasks.Kubernetes;
+import io.kojan.mbici.tasks.PodSizingMode;
+import io.kojan.mbici.tasks.WorkVolumeType;
+import java.nio.file.Path;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
@@ -52,6 +57,49 @@ public class KubeExecuteCommand extends AbstractExecuteCommand {
             description = "Pod running timeout.")
     private String podRunningTimeout = "30m";
 
+    @Option(
+            names = {"--api-server"},
+            description =
+                    "URL of Kubernetes API server to manage Pods through. When running in"
+                            + " a Pod, service account is used by default. Otherwise Pods"
+                            + " are run with kubectl.")
+    private String apiServer;
+
+    @Option(
+            names = {"--api-token-file"},
+            description = "File with bearer token for Kubernetes API authentication.")
+    private Path apiTokenFile;
+
+    @Option(
+            names = {"--api-ca-file"},
+            description = "File with CA certificates trusted for Kubernetes API server.")
+    private Path apiCaFile;
+
+    @Option(
+            names = {"--warm-pool-size"},
+            description =
+                    "Max number of long-lived worker Pods that short commands, like repository"
+                            + " creation, are executed in. Requires Kubernetes API access.")
+    private Integer warmPoolSize = 0;
+
+    @Option(
+            names = {"--pod-sizing"},
+            description =
+                    "How to choose CPU and memory requests of Pods, one of:"
+                            + " ${COMPLETION-CANDIDATES}. AUTO sizes requests from resource"
+                            + " usage in previous runs. Component resources declared in the"
+                            + " Plan always take precedence.")
+    private PodSizingMode podSizing = PodSizingMode.FIXED;
+
+    @Option(
+            names = {"--node-cache-dir"},
+            description =
+                    "Directory on Kubernetes nodes to cache dependency repositories in, so that"
+                            + " builds read them from local storage rather than from result"
+                            + " volume. It must exist on all nodes and be writable by the build"
+                            + " user. Nodes that have the repositories are preferred for builds.")
+    private Path nodeCacheDir;
+
     @Option(
             names = {"--srpm-cpu-request"},
             description = "Requested CPU for running SRPM Pods.")
@@ -92,6 +140,57 @@ public class KubeExecuteCommand extends AbstractExecuteCommand {
             description = "Max memory for running RPM Pods.")
     private String rpmMemoryLimit = "6Gi";
 
+    @Option(
+            names = {"--srpm-work-volume-type"},
+            description =
+                    "Kind of volume holding work directory of SRPM Pods, one of:"
+                            + " ${COMPLETION-CANDIDATES}.")
+    private WorkVolumeType srpmWorkVolumeType = WorkVolumeType.MEMORY;
+
+    @Option(
+            names = {"--srpm-work-volume-size"},
+            description = "Size of volume holding work directory of SRPM Pods, defaults to 1Gi.")
+    private String srpmWorkVolumeSize;
+
+    @Option(
+            names = {"--rpm-work-volume-type"},
+            description =
+                    "Kind of volume holding work directory of RPM Pods, one of:"
+                            + " ${COMPLETION-CANDIDATES}.")
+    private WorkVolumeType rpmWorkVolumeType = WorkVolumeType.MEMORY;
+
+    @Option(
+            names = {"--rpm-work-volume-size"},
+            description = "Size of volume holding work directory of RPM Pods, defaults to 1Gi.")
+    private String rpmWorkVolumeSize;
+
+    @Option(
+            names = {"--work-volume-storage-class"},
+            description = "StorageClass to provision EPHEMERAL work volumes from.")
+    private String workVolumeStorageClass;
+
+    @Option(
+            names = {"--tolerations"},
+            description = "Tolerations of all Pods, as JSON array in Kubernetes Pod spec format.")
+    private String tolerations;
+
+    @Option(
+            names = {"--priority-class-name"},
+            description = "PriorityClass of all Pods.")
+    private String priorityClassName;
+
+    @Option(
+            names = {"--runtime-class-name"},
+            description = "RuntimeClass of all Pods.")
+    private String runtimeClassName;
+
+    @Option(
+            names = {"--infra-retry-budget"},
+            description =
+                    "Max total number of retries of commands that fail because of Kubernetes"
+                            + " cluster, like Pod eviction or OOM kill, during the execution.")
+    private Integer infraRetryBudget = 20;
+
     public String getNamespace() {
         return namespace;
     }
@@ -132,6 +231,54 @@ public class KubeExecuteCommand extends AbstractExecuteCommand {
         this.podRunningTimeout = podRunningTimeout;
     }
 
+    public String getApiServer() {
+        return apiServer;
+    }
+
+    public void setApiServer(String apiServer) {
+        this.apiServer = apiServer;
+    }
+
+    public Path getApiTokenFile() {
+        return apiTokenFile;
+    }
+
+    public void setApiTokenFile(Path apiTokenFile) {
+        this.apiTokenFile = apiTokenFile;
+    }
+
+    public Path getApiCaFile() {
+        return apiCaFile;
+    }
+
+    public void setApiCaFile(Path apiCaFile) {
+        this.apiCaFile = apiCaFile;
+    }
+
+    public Integer getWarmPoolSize() {
+        return warmPoolSize;
+    }
+
+    public void setWarmPoolSize(Integer warmPoolSize) {
+        this.warmPoolSize = warmPoolSize;
+    }
+
+    public PodSizingMode getPodSizing() {
+        return podSizing;
+    }
+
+    public void setPodSizing(PodSizingMode podSizing) {
+        this.podSizing = podSizing;
+    }
+
+    public Path getNodeCacheDir() {
+        return nodeCacheDir;
+    }
+
+    public void setNodeCacheDir(Path nodeCacheDir) {
+        this.nodeCacheDir = nodeCacheDir;
+    }
+
     public String getSrpmCpuRequest() {
         return srpmCpuRequest;
     }
@@ -196,7 +343,91 @@ public class KubeExecuteCommand extends AbstractExecuteCommand {
         this.rpmMemoryLimit = rpmMemoryLimit;
     }
 
-    protected void initialize() {
+    public WorkVolumeType getSrpmWorkVolumeType() {
+        return srpmWorkVolumeType;
+    }
+
+    public void setSrpmWorkVolumeType(WorkVolumeType srpmWorkVolumeType) {
+        this.srpmWorkVolumeType = srpmWorkVolumeType;
+    }
+
+    public String getSrpmWorkVolumeSize() {
+        return srpmWorkVolumeSize;
+    }
+
+    public void setSrpmWorkVolumeSize(String srpmWorkVolumeSize) {
+        this.srpmWorkVolumeSize = srpmWorkVolumeSize;
+    }
+
+    public WorkVolumeType getRpmWorkVolumeType() {
+        return rpmWorkVolumeType;
+    }
+
+    public void setRpmWorkVolumeType(WorkVolumeType rpmWorkVolumeType) {
+        this.rpmWorkVolumeType = rpmWorkVolumeType;
+    }
+
+    public String getRpmWorkVolumeSize() {
+        return rpmWorkVolumeSize;
+    }
+
+    public void setRpmWorkVolumeSize(String rpmWorkVolumeSize) {
+        this.rpmWorkVolumeSize = rpmWorkVolumeSize;
+    }
+
+    public String getWorkVolumeStorageClass() {
+        return workVolumeStorageClass;
+    }
+
+    public void setWorkVolumeStorageClass(String workVolumeStorageClass) {
+        this.workVolumeStorageClass = workVolumeStorageClass;
+    }
+
+    public String getTolerations() {
+        return tolerations;
+    }
+
+    public void setTolerations(String tolerations) {
+        this.tolerations = tolerations;
+    }
+
+    public String getPriorityClassName() {
+        return priorityClassName;
+    }
+
+    public void setPriorityClassName(String priorityClassName) {
+        this.priorityClassName = priorityClassName;
+    }
+
+    public String getRuntimeClassName() {
+        return runtimeClassName;
+    }
+
+    public void setRuntimeClassName(String runtimeClassName) {
+        this.runtimeClassName = runtimeClassName;
+    }
+
+    public Integer getInfraRetryBudget() {
+        return infraRetryBudget;
+    }
+
+    public void setInfraRetryBudget(Integer infraRetryBudget) {
+        this.infraRetryBudget = infraRetryBudget;
+    }
+
+    protected void initialize() throws Exception {
+        KubeClient apiClient = null;
+        if (apiServer != null) {
+            apiClient = new KubeClient(apiServer, apiTokenFile, apiCaFile);
+        } else if (KubeClient.isInCluster()) {
+            apiClient = KubeClient.inCluster();
+        }
+        if (apiClient != null && namespace == null) {
+            namespace = KubeClient.getInClusterNamespace();
+            if (namespace == null) {
+                namespace = "default";
+            }
+        }
         Kubernetes kubernetes =
                 new Kubernetes(
                         getCacheManager(),
@@ -213,6 +444,30 @@ public class KubeExecuteCommand extends AbstractExecuteCommand {
                         srpmMemoryLimit,
                         rpmMemoryRequest,
                         rpmMemoryLimit);
+        kubernetes.setApiClient(apiClient);
+        kubernetes.setSizingMode(podSizing);
+        kubernetes.setSrpmWorkVolume(srpmWorkVolumeType, srpmWorkVolumeSize);
+        kubernetes.setRpmWorkVolume(rpmWorkVolumeType, rpmWorkVolumeSize);
+        kubernetes.setWorkVolumeStorageClass(workVolumeStorageClass);
+        if (tolerations != null) {
+            kubernetes.setTolerations(tolerations);
+        }
+        kubernetes.setPriorityClassName(priorityClassName);
+        kubernetes.setRuntimeClassName(runtimeClassName);
+        kubernetes.setInfraRetryBudget(infraRetryBudget);
+        if (nodeCacheDir != null) {
+            kubernetes.setNodeCacheDir(nodeCacheDir);
+        }
+        if (planPath != null) {
+            kubernetes.setPlan(Plan.readFromXML(planPath));
+        }
+        if (apiClient != null) {
+            kubernetes.setWarmPoolSize(warmPoolSize);
+        }
         io.kojan.mbici.tasks.Command.kubernetes = kubernetes;
     }
+
+    protected void shutdown() throws Exception {
+        io.kojan.mbici.tasks.Command.kubernetes.shutdown();
+    }
 }
@@ -0,0 +1,130 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.execute;
+
+import io.kojan.workflow.TaskThrottle;
+import io.kojan.workflow.model.Task;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Throttle that admits tasks as long as their total weight fits in the host
+/// resource budget.
+///
+/// Waiting tasks are admitted in priority order, tasks of equal priority in
+/// order of arrival. Smaller tasks may overtake a task that does not fit yet,
+/// but only a limited number of times, so that big tasks are not starved.
+class ResourceThrottle implements TaskThrottle {
+    private static final int MAX_OVERTAKES = 8;
+
+    private static class Waiter {
+        final Task task;
+        final TaskWeight weight;
+        int overtaken;
+        boolean admitted;
+
+        Waiter(Task task, TaskWeight weight) {
+            this.task = task;
+            this.weight = weight;
+        }
+    }
+
+    private final TaskThrottle delegate;
+    private final TaskWeigher weigher;
+    private final TaskWeight budget;
+    private final Comparator<Waiter> priority;
+    private final List<Waiter> waiters = new ArrayList<>();
+    private final Map<String, TaskWeight> running = new LinkedHashMap<>();
+    private TaskWeight used = TaskWeight.ZERO;
+
+    public ResourceThrottle(
+            TaskThrottle delegate,
+            TaskWeigher weigher,
+            TaskWeight budget,
+            Comparator<Task> priority) {
+        this.delegate = delegate;
+        this.weigher = weigher;
+        this.budget = budget;
+        this.priority = Comparator.comparing(waiter -> waiter.task, priority);
+    }
+
+    private void admit() {
+        Waiter blocked = null;
+        for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+            Waiter waiter = it.next();
+            if (blocked != null && blocked.overtaken >= MAX_OVERTAKES) {
+                break;
+            }
+            // Task that alone exceeds the budget is allowed to run when nothing else runs
+            if (used.plus(waiter.weight).fitsIn(budget) || running.isEmpty()) {
+                it.remove();
+                used = used.plus(waiter.weight);
+                running.put(waiter.task.getId(), waiter.weight);
+                waiter.admitted = true;
+                if (blocked != null) {
+                    blocked.overtaken++;
+                }
+            } else if (blocked == null) {
+                blocked = waiter;
+            }
+        }
+        notifyAll();
+    }
+
+    @Override
+    public void acquireCapacity(Task task) {
+        TaskWeight weight = weigher.weigh(task);
+        if (weight == null) {
+            delegate.acquireCapacity(task);
+            return;
+        }
+
+        boolean interrupted = false;
+        synchronized (this) {
+            Waiter waiter = new Waiter(task, weight);
+            waiters.add(waiter);
+            // Stable sort keeps tasks of equal priority in arrival order
+            waiters.sort(priority);
+            admit();
+            while (!waiter.admitted) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void releaseCapacity(Task task) {
+        synchronized (this) {
+            TaskWeight weight = running.remove(task.getId());
+            if (weight != null) {
+                used = used.minus(weight);
+                admit();
+                return;
+            }
+        }
+        delegate.releaseCapacity(task);
+    }
+}
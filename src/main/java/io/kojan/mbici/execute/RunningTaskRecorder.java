@@ -0,0 +1,161 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.execute;
+
+import io.kojan.workflow.FinishedTask;
+import io.kojan.workflow.WorkflowExecutionListener;
+import io.kojan.workflow.model.Task;
+import io.kojan.workflow.model.Workflow;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Keeps list of tasks that are currently running, with times they started
+/// at, in a file next to the workflow file, so that other processes can tell
+/// which tasks are running.
+///
+/// The file also holds PID of the process executing the workflow, so that
+/// the list is not trusted once the process is gone, for example after it
+/// was killed.
+public class RunningTaskRecorder implements WorkflowExecutionListener {
+    private final Path runningPath;
+    private final Map<String, Instant> running = new LinkedHashMap<>();
+
+    public RunningTaskRecorder(Path workflowPath) {
+        this.runningPath = getRunningPath(workflowPath);
+    }
+
+    private static Path getRunningPath(Path workflowPath) {
+        return workflowPath.resolveSibling(workflowPath.getFileName() + ".running");
+    }
+
+    /// Returns tasks of workflow with given path that are running, with
+    /// times they started at.
+    public static Map<String, Instant> read(Path workflowPath) throws IOException {
+        Map<String, Instant> running = new LinkedHashMap<>();
+        Path runningPath = getRunningPath(workflowPath);
+        if (!Files.exists(runningPath)) {
+            return running;
+        }
+        List<String> lines = Files.readAllLines(runningPath, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            return running;
+        }
+        try {
+            long pid = Long.parseLong(lines.getFirst());
+            if (!ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+                return running;
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                int sep = line.lastIndexOf(' ');
+                running.put(
+                        line.substring(0, sep),
+                        Instant.ofEpochMilli(Long.parseLong(line.substring(sep + 1))));
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            // File was not written by this version, ignore it
+            running.clear();
+        }
+        return running;
+    }
+
+    private void write() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(ProcessHandle.current().pid()).append('\n');
+        for (Map.Entry<String, Instant> entry : running.entrySet()) {
+            sb.append(entry.getKey())
+                    .append(' ')
+                    .append(entry.getValue().toEpochMilli())
+                    .append('\n');
+        }
+        try {
+            Path tempPath =
+                    Files.createTempFile(
+                            runningPath.toAbsolutePath().getParent(), "running-", ".tmp");
+            try {
+                Files.writeString(tempPath, sb, StandardCharsets.UTF_8);
+                Files.move(
+                        tempPath,
+                        runningPath,
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempPath);
+            }
+        } catch (IOException e) {
+            // List of running tasks is only informative, so failing to write
+            // it must not affect the workflow
+            System.err.println("Unable to record running tasks: " + e);
+        }
+    }
+
+    private synchronized void finished(Task task) {
+        if (running.remove(task.getId()) != null) {
+            write();
+        }
+    }
+
+    private void delete() {
+        try {
+            Files.deleteIfExists(runningPath);
+        } catch (IOException e) {
+            System.err.println("Unable to delete list of running tasks: " + e);
+        }
+    }
+
+    @Override
+    public synchronized void taskRunning(Workflow workflow, Task task) {
+        running.put(task.getId(), Instant.now());
+        write();
+    }
+
+    @Override
+    public void taskSucceeded(Workflow workflow, FinishedTask finishedTask) {
+        finished(finishedTask.getTask());
+    }
+
+    @Override
+    public void taskFailed(Workflow workflow, FinishedTask finishedTask) {
+        finished(finishedTask.getTask());
+    }
+
+    @Override
+    public void taskReused(Workflow workflow, FinishedTask finishedTask) {
+        finished(finishedTask.getTask());
+    }
+
+    @Override
+    public synchronized void workflowRunning(Workflow workflow) {
+        running.clear();
+        write();
+    }
+
+    @Override
+    public synchronized void workflowSucceeded(Workflow workflow) {
+        delete();
+    }
+
+    @Override
+    public synchronized void workflowFailed(Workflow workflow) {
+        delete();
+    }
+}
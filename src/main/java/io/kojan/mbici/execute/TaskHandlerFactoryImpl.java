@@ -19,6 +19,7 @@ import io.kojan.mbici.cache.CacheManager;
 import io.kojan.mbici.tasks.AbstractTaskHandler;
 import io.kojan.mbici.tasks.CheckoutTaskHandler;
 import io.kojan.mbici.tasks.GatherTaskHandler;
+import io.kojan.mbici.tasks.MockOptions;
 import io.kojan.mbici.tasks.ProvisionTaskHandler;
 import io.kojan.mbici.tasks.RepoTaskHandler;
 import io.kojan.mbici.tasks.RpmTaskHandler;
@@ -34,6 +35,7 @@ public class TaskHandlerFactoryImpl implements TaskHandlerFactory {
     private final Map<String, Function<Task, ? extends AbstractTaskHandler>> registry =
             new LinkedHashMap<>();
     private final CacheManager cacheManager;
+    private final MockOptions mockOptions;
 
     private void registerHandler(
             Class<? extends AbstractTaskHandler> cls,
@@ -41,8 +43,9 @@ public class TaskHandlerFactoryImpl implements TaskHandlerFactory {
         registry.put(cls.getCanonicalName(), ctor);
     }
 
-    public TaskHandlerFactoryImpl(CacheManager cacheManager) {
+    public TaskHandlerFactoryImpl(CacheManager cacheManager, MockOptions mockOptions) {
         this.cacheManager = cacheManager;
+        this.mockOptions = mockOptions;
         registerHandler(CheckoutTaskHandler.class, CheckoutTaskHandler::new);
         registerHandler(GatherTaskHandler.class, GatherTaskHandler::new);
         registerHandler(RepoTaskHandler.class, RepoTaskHandler::new);
@@ -59,6 +62,7 @@ public class TaskHandlerFactoryImpl implements TaskHandlerFactory {
         }
         AbstractTaskHandler taskHandler = ctor.apply(task);
         taskHandler.setCacheManager(cacheManager);
+        taskHandler.setMockOptions(mockOptions);
         return taskHandler;
     }
 }
@@ -0,0 +1,90 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.execute;
+
+import io.kojan.mbici.cache.HistoryRecord;
+import io.kojan.mbici.cache.HistoryStore;
+import io.kojan.mbici.generate.WorkflowFactory;
+import io.kojan.mbici.model.Plan;
+import io.kojan.mbici.model.Resources;
+import io.kojan.mbici.tasks.RpmTaskHandler;
+import io.kojan.mbici.tasks.SrpmTaskHandler;
+import io.kojan.workflow.model.Task;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/// Determines how much host resources given task is expected to use.
+///
+/// Resources declared for a component in the Plan take precedence over
+/// resources learned from task history, which take precedence over defaults
+/// for the task handler. Tasks of handlers without any defaults are not
+/// subject to resource throttling and have no weight.
+class TaskWeigher {
+    private static final long GIB = 1L << 30;
+    private static final double MEMORY_HEADROOM = 1.2;
+    private static final double MIN_LEARNED_CPU = 0.25;
+
+    private final Map<String, TaskWeight> defaultWeights = new LinkedHashMap<>();
+    private final Map<String, String> componentsByTaskId;
+    private final Map<String, Resources> resourcesByComponent = new LinkedHashMap<>();
+    private final HistoryStore historyStore;
+
+    public TaskWeigher(Plan plan, HistoryStore historyStore) {
+        this.historyStore = historyStore;
+        defaultWeights.put(SrpmTaskHandler.class.getName(), new TaskWeight(1, 1 * GIB, 2 * GIB));
+        defaultWeights.put(RpmTaskHandler.class.getName(), new TaskWeight(2, 3 * GIB, 6 * GIB));
+        if (plan != null) {
+            componentsByTaskId = WorkflowFactory.getComponentsByTaskId(plan);
+            for (Resources resources : plan.getResources()) {
+                resourcesByComponent.put(resources.getComponent(), resources);
+            }
+        } else {
+            componentsByTaskId = Map.of();
+        }
+    }
+
+    public TaskWeight weigh(Task task) {
+        TaskWeight weight = defaultWeights.get(task.getHandler());
+        if (weight == null) {
+            return null;
+        }
+        HistoryRecord record = historyStore != null ? historyStore.lookup(task.getId()) : null;
+        if (record != null && record.getPeakRss() > 0 && !record.getDuration().isZero()) {
+            double cpu = (double) record.getCpuTime().toMillis() / record.getDuration().toMillis();
+            weight =
+                    new TaskWeight(
+                            Math.max(cpu, MIN_LEARNED_CPU),
+                            (long) (record.getPeakRss() * MEMORY_HEADROOM),
+                            weight.getDisk());
+        }
+        String component = componentsByTaskId.get(task.getId());
+        Resources resources = component != null ? resourcesByComponent.get(component) : null;
+        if (resources != null) {
+            weight =
+                    new TaskWeight(
+                            resources.getCpu() != null
+                                    ? Resources.parseCpu(resources.getCpu())
+                                    : weight.getCpu(),
+                            resources.getMemory() != null
+                                    ? Resources.parseBytes(resources.getMemory())
+                                    : weight.getMemory(),
+                            resources.getDisk() != null
+                                    ? Resources.parseBytes(resources.getDisk())
+                                    : weight.getDisk());
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,61 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.execute;
+
+/// Amount of host resources reserved for a running task.
+class TaskWeight {
+    static final TaskWeight ZERO = new TaskWeight(0, 0, 0);
+
+    private final double cpu;
+    private final long memory;
+    private final long disk;
+
+    TaskWeight(double cpu, long memory, long disk) {
+        this.cpu = cpu;
+        this.memory = memory;
+        this.disk = disk;
+    }
+
+    public double getCpu() {
+        return cpu;
+    }
+
+    public long getMemory() {
+        return memory;
+    }
+
+    public long getDisk() {
+        return disk;
+    }
+
+    public TaskWeight plus(TaskWeight other) {
+        return new TaskWeight(cpu + other.cpu, memory + other.memory, disk + other.disk);
+    }
+
+    public TaskWeight minus(TaskWeight other) {
+        return new TaskWeight(cpu - other.cpu, memory - other.memory, disk - other.disk);
+    }
+
+    public boolean fitsIn(TaskWeight budget) {
+        return cpu <= budget.cpu && memory <= budget.memory && disk <= budget.disk;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "cpu %.1f, memory %d MiB, disk %d MiB", cpu, memory >> 20, disk >> 20);
+    }
+}
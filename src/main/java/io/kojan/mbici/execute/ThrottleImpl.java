@@ -20,31 +20,74 @@ import io.kojan.mbici.tasks.RpmTaskHandler;
 import io.kojan.mbici.tasks.SrpmTaskHandler;
 import io.kojan.workflow.TaskThrottle;
 import io.kojan.workflow.model.Task;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Semaphore;
 
 /// @author Mikolaj Izdebski
 class ThrottleImpl implements TaskThrottle {
-    private final Map<String, Semaphore> semaphores = new LinkedHashMap<>();
+    private final Map<String, Slots> slots = new LinkedHashMap<>();
+
+    /// Limited number of slots, given to waiting tasks in priority order.
+    private static class Slots {
+        private final Comparator<Task> priority;
+        private final List<Task> waiting = new ArrayList<>();
+        private int available;
+
+        Slots(int count, Comparator<Task> priority) {
+            this.available = count;
+            this.priority = priority;
+        }
+
+        synchronized void acquire(Task task) {
+            // Stable sort keeps tasks of equal priority in arrival order
+            waiting.add(task);
+            waiting.sort(priority);
+            boolean interrupted = false;
+            while (available == 0 || waiting.getFirst() != task) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            waiting.removeFirst();
+            available--;
+            notifyAll();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized void release() {
+            available++;
+            notifyAll();
+        }
+    }
 
     public ThrottleImpl(int maxCheckout, int maxSrpm, int maxRpm) {
-        semaphores.put(CheckoutTaskHandler.class.getName(), new Semaphore(maxCheckout));
-        semaphores.put(RpmTaskHandler.class.getName(), new Semaphore(maxRpm));
-        semaphores.put(SrpmTaskHandler.class.getName(), new Semaphore(maxSrpm));
+        this(maxCheckout, maxSrpm, maxRpm, (a, b) -> 0);
+    }
+
+    public ThrottleImpl(int maxCheckout, int maxSrpm, int maxRpm, Comparator<Task> priority) {
+        slots.put(CheckoutTaskHandler.class.getName(), new Slots(maxCheckout, priority));
+        slots.put(RpmTaskHandler.class.getName(), new Slots(maxRpm, priority));
+        slots.put(SrpmTaskHandler.class.getName(), new Slots(maxSrpm, priority));
     }
 
     @Override
     public void acquireCapacity(Task task) {
-        Semaphore sema = semaphores.get(task.getHandler());
+        Slots sema = slots.get(task.getHandler());
         if (sema != null) {
-            sema.acquireUninterruptibly();
+            sema.acquire(task);
         }
     }
 
     @Override
     public void releaseCapacity(Task task) {
-        Semaphore sema = semaphores.get(task.getHandler());
+        Slots sema = slots.get(task.getHandler());
         if (sema != null) {
             sema.release();
         }
@@ -61,6 +61,6 @@ class WebHookDumper extends AbstractDumper {
         HttpResponse<String> resp = client.send(req, BodyHandlers.ofString());
         System.err.println("Webhook resp code " + resp.statusCode());
 
-        Thread.sleep(Duration.ofSeconds(10));
+        pause(Duration.ofSeconds(10));
     }
 }
@@ -0,0 +1,89 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.execute;
+
+import io.kojan.mbici.cache.CacheManager;
+import io.kojan.workflow.FinishedTask;
+import io.kojan.workflow.WorkflowExecutionListener;
+import io.kojan.workflow.model.Task;
+import io.kojan.workflow.model.Workflow;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/// Deletes work dirs of successful tasks in background as they finish.
+///
+/// Work dirs of failed tasks are kept, as they may be needed to investigate
+/// the failure. These are eventually removed by garbage collector.
+class WorkDirCleaner implements WorkflowExecutionListener {
+    private final CacheManager cacheManager;
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "work-dir-cleaner");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+    public WorkDirCleaner(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public void taskRunning(Workflow workflow, Task task) {
+        // Nothing to do
+    }
+
+    @Override
+    public void taskSucceeded(Workflow workflow, FinishedTask finishedTask) {
+        Task task = finishedTask.getTask();
+        String resultId = finishedTask.getResult().getId();
+        executor.execute(
+                () -> {
+                    try {
+                        cacheManager.discardWorkDir(task, resultId);
+                    } catch (IOException e) {
+                        System.err.println(
+                                "Unable to clean work dir of " + task.getId() + ": " + e);
+                    }
+                });
+    }
+
+    @Override
+    public void taskFailed(Workflow workflow, FinishedTask finishedTask) {
+        // Nothing to do
+    }
+
+    @Override
+    public void taskReused(Workflow workflow, FinishedTask finishedTask) {
+        // Nothing to do
+    }
+
+    @Override
+    public void workflowRunning(Workflow workflow) {
+        // Nothing to do
+    }
+
+    @Override
+    public void workflowSucceeded(Workflow workflow) {
+        executor.shutdown();
+    }
+
+    @Override
+    public void workflowFailed(Workflow workflow) {
+        executor.shutdown();
+    }
+}
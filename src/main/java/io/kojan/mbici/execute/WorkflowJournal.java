@@ -0,0 +1,157 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.execute;
+
+import io.kojan.workflow.model.Result;
+import io.kojan.workflow.model.Task;
+import io.kojan.workflow.model.Workflow;
+import io.kojan.workflow.model.WorkflowBuilder;
+import io.kojan.xml.XMLException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/// Write-ahead log of Workflow results.
+///
+/// Results are appended to a journal file next to the workflow file as they
+/// are produced and folded into the workflow snapshot only when the journal
+/// is compacted. Each record is a Workflow holding a single result, preceded
+/// by its length in bytes, so that a partially written record can be detected
+/// and ignored.
+public class WorkflowJournal {
+    private final Path workflowPath;
+    private final Path journalPath;
+
+    public WorkflowJournal(Path workflowPath) {
+        this.workflowPath = workflowPath;
+        this.journalPath = getJournalPath(workflowPath);
+    }
+
+    public static Path getJournalPath(Path workflowPath) {
+        return workflowPath.resolveSibling(workflowPath.getFileName() + ".journal");
+    }
+
+    public void append(List<Result> results) throws IOException, XMLException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        for (Result result : results) {
+            WorkflowBuilder builder = new WorkflowBuilder();
+            builder.addResult(result);
+            byte[] record = builder.build().toXML().getBytes(StandardCharsets.UTF_8);
+            bos.write((record.length + "\n").getBytes(StandardCharsets.UTF_8));
+            bos.write(record);
+            bos.write('\n');
+        }
+        Files.write(
+                journalPath,
+                bos.toByteArray(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    /// Atomically replaces workflow snapshot and discards the journal.
+    public void compact(Workflow workflow) throws IOException, XMLException {
+        // Temp file is unique, as the dumper may still be compacting
+        Path tempPath =
+                Files.createTempFile(
+                        workflowPath.toAbsolutePath().getParent(),
+                        "wf-",
+                        ".xml.tmp",
+                        PosixFilePermissions.asFileAttribute(
+                                PosixFilePermissions.fromString("rw-r--r--")));
+        try {
+            workflow.writeToXML(tempPath);
+            Files.move(
+                    tempPath,
+                    workflowPath,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+        Files.deleteIfExists(journalPath);
+    }
+
+    /// Discards the journal, for example after a new workflow was generated.
+    public static void delete(Path workflowPath) throws IOException {
+        Files.deleteIfExists(getJournalPath(workflowPath));
+    }
+
+    /// Reads workflow snapshot with journaled results replayed on top of it.
+    public static Workflow read(Path workflowPath) throws IOException, XMLException {
+        // Journal must be read before the snapshot. Compaction replaces the
+        // snapshot before removing the journal, so no result can be missed.
+        List<Result> journaled = readJournal(getJournalPath(workflowPath));
+        Workflow snapshot = Workflow.readFromXML(workflowPath);
+        if (journaled.isEmpty()) {
+            return snapshot;
+        }
+        WorkflowBuilder builder = new WorkflowBuilder();
+        for (Task task : snapshot.getTasks()) {
+            builder.addTask(task);
+        }
+        Set<String> resultIds = new HashSet<>();
+        for (Result result : snapshot.getResults()) {
+            resultIds.add(result.getId());
+            builder.addResult(result);
+        }
+        for (Result result : journaled) {
+            if (resultIds.add(result.getId())) {
+                builder.addResult(result);
+            }
+        }
+        return builder.build();
+    }
+
+    private static List<Result> readJournal(Path journalPath) throws IOException, XMLException {
+        List<Result> results = new ArrayList<>();
+        if (!Files.exists(journalPath)) {
+            return results;
+        }
+        byte[] bytes = Files.readAllBytes(journalPath);
+        int pos = 0;
+        while (pos < bytes.length) {
+            int eol = pos;
+            while (eol < bytes.length && bytes[eol] != '\n') {
+                eol++;
+            }
+            String header = new String(bytes, pos, eol - pos, StandardCharsets.UTF_8);
+            int length;
+            try {
+                length = Integer.parseInt(header);
+            } catch (NumberFormatException e) {
+                break;
+            }
+            pos = eol + 1;
+            if (length < 0 || pos + length >= bytes.length) {
+                // Last record was not written completely
+                break;
+            }
+            String xml = new String(bytes, pos, length, StandardCharsets.UTF_8);
+            results.addAll(Workflow.fromXML(xml).getResults());
+            pos += length + 1;
+        }
+        return results;
+    }
+}
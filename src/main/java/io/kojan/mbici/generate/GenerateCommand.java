@@ -17,6 +17,7 @@ package io.kojan.mbici.generate;
 
 import io.kojan.mbici.AbstractCommand;
 import io.kojan.mbici.Main;
+import io.kojan.mbici.execute.WorkflowJournal;
 import io.kojan.mbici.model.Plan;
 import io.kojan.mbici.model.Platform;
 import io.kojan.mbici.model.Subject;
@@ -97,6 +98,7 @@ public class GenerateCommand extends AbstractCommand {
         WorkflowFactory wff = new WorkflowFactory();
         Workflow wfd = wff.createFromPlan(platform, plan, subject);
         wfd.writeToXML(workflowPath);
+        WorkflowJournal.delete(workflowPath);
 
         return 0;
     }
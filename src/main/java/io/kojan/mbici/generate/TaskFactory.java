@@ -46,6 +46,18 @@ class TaskFactory {
         this.workflowBuilder = workflowBuilder;
     }
 
+    static String checkoutTaskId(String component) {
+        return component + "-checkout";
+    }
+
+    static String srpmTaskId(String component) {
+        return component + "-srpm";
+    }
+
+    static String rpmTaskId(String component, String phase) {
+        return component + "-" + phase + "-rpm";
+    }
+
     public Task createGatherTask(String id, Platform platform) {
         TaskBuilder task = new TaskBuilder();
         task.setId(id);
@@ -81,7 +93,7 @@ class TaskFactory {
 
     public Task createCheckoutTask(SubjectComponent cs) {
         TaskBuilder task = new TaskBuilder();
-        task.setId(cs.getName() + "-checkout");
+        task.setId(checkoutTaskId(cs.getName()));
         task.setHandler(CHECKOUT_HANDLER);
         task.addParameter("scm", cs.getScm());
         task.addParameter("commit", cs.getCommit());
@@ -94,7 +106,7 @@ class TaskFactory {
 
     public Task createSrpmTask(String component, Task checkout, Task repo, List<Macro> planMacros) {
         TaskBuilder task = new TaskBuilder();
-        task.setId(component + "-srpm");
+        task.setId(srpmTaskId(component));
         task.setHandler(SRPM_HANDLER);
         task.addDependency(checkout.getId());
         task.addDependency(repo.getId());
@@ -116,7 +128,7 @@ class TaskFactory {
             List<Macro> planMacros,
             List<Macro> phaseMacros) {
         TaskBuilder task = new TaskBuilder();
-        task.setId(component + "-" + phase + "-rpm");
+        task.setId(rpmTaskId(component, phase));
         task.setHandler(RPM_HANDLER);
         task.addDependency(srpm.getId());
         for (Task repo : repos) {
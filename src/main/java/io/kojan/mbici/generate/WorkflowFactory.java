@@ -88,6 +88,18 @@ public class WorkflowFactory {
         return workflowBuilder.build();
     }
 
+    public static Map<String, String> getComponentsByTaskId(Plan plan) {
+        Map<String, String> components = new LinkedHashMap<>();
+        for (Phase phase : plan.getPhases()) {
+            for (String component : phase.getComponents()) {
+                components.put(TaskFactory.checkoutTaskId(component), component);
+                components.put(TaskFactory.srpmTaskId(component), component);
+                components.put(TaskFactory.rpmTaskId(component, phase.getName()), component);
+            }
+        }
+        return components;
+    }
+
     public Workflow createTestWorkflow(
             String provisionTaskId, Platform testPlatform, Path composeRepoDir) {
         WorkflowBuilder workflowBuilder = new WorkflowBuilder();
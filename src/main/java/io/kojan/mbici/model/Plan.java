@@ -27,10 +27,12 @@ import java.util.List;
 public class Plan {
     private final List<Phase> phases;
     private final List<Macro> macros;
+    private final List<Resources> resources;
 
-    public Plan(List<Phase> phases, List<Macro> macros) {
+    public Plan(List<Phase> phases, List<Macro> macros, List<Resources> resources) {
         this.phases = Collections.unmodifiableList(phases);
         this.macros = Collections.unmodifiableList(macros);
+        this.resources = Collections.unmodifiableList(resources);
     }
 
     public List<Phase> getPhases() {
@@ -41,12 +43,18 @@ public class Plan {
         return macros;
     }
 
+    public List<Resources> getResources() {
+        return resources;
+    }
+
     static final Entity<Plan, PlanBuilder> ENTITY =
             Entity.of(
                     "plan",
                     PlanBuilder::new,
                     Relationship.of(Phase.ENTITY, Plan::getPhases, PlanBuilder::addPhase),
-                    Relationship.of(Macro.ENTITY, Plan::getMacros, PlanBuilder::addMacro));
+                    Relationship.of(Macro.ENTITY, Plan::getMacros, PlanBuilder::addMacro),
+                    Relationship.of(
+                            Resources.ENTITY, Plan::getResources, PlanBuilder::addResources));
 
     public static Plan readFromXML(Path path) throws IOException, XMLException {
         return ENTITY.readFromXML(path);
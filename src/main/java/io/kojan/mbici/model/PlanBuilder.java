@@ -23,6 +23,7 @@ import java.util.List;
 public class PlanBuilder implements Builder<Plan> {
     private final List<Phase> phases = new ArrayList<>();
     private final List<Macro> macros = new ArrayList<>();
+    private final List<Resources> resources = new ArrayList<>();
 
     public void addPhase(Phase phase) {
         phases.add(phase);
@@ -32,8 +33,12 @@ public class PlanBuilder implements Builder<Plan> {
         macros.add(macro);
     }
 
+    public void addResources(Resources resources) {
+        this.resources.add(resources);
+    }
+
     @Override
     public Plan build() {
-        return new Plan(phases, macros);
+        return new Plan(phases, macros, resources);
     }
 }
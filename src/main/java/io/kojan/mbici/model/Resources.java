@@ -0,0 +1,126 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.model;
+
+import io.kojan.xml.Attribute;
+import io.kojan.xml.Entity;
+
+/// Resource requirements of builds of a single component.
+///
+/// Quantities use Kubernetes notation, for example `500m` or `2` for CPU
+/// and `512Mi` or `4Gi` for memory and disk. CPU and memory are requested
+/// amounts, while optional limits only apply to Kubernetes Pods. On
+/// Kubernetes, disk is the size of volume holding the work directory, and
+/// work volume is its kind: `MEMORY`, `DISK` or `EPHEMERAL`.
+public class Resources {
+    private final String component;
+    private final String cpu;
+    private final String memory;
+    private final String disk;
+    private final String cpuLimit;
+    private final String memoryLimit;
+    private final String workVolume;
+
+    public Resources(
+            String component,
+            String cpu,
+            String memory,
+            String disk,
+            String cpuLimit,
+            String memoryLimit,
+            String workVolume) {
+        this.component = component;
+        this.cpu = cpu;
+        this.memory = memory;
+        this.disk = disk;
+        this.cpuLimit = cpuLimit;
+        this.memoryLimit = memoryLimit;
+        this.workVolume = workVolume;
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    public String getCpu() {
+        return cpu;
+    }
+
+    public String getMemory() {
+        return memory;
+    }
+
+    public String getDisk() {
+        return disk;
+    }
+
+    public String getCpuLimit() {
+        return cpuLimit;
+    }
+
+    public String getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    public String getWorkVolume() {
+        return workVolume;
+    }
+
+    public static double parseCpu(String quantity) {
+        String[] suffixes = {"n", "u", "m"};
+        double[] multipliers = {1e-9, 1e-6, 1e-3};
+        for (int i = 0; i < suffixes.length; i++) {
+            if (quantity.endsWith(suffixes[i])) {
+                String number = quantity.substring(0, quantity.length() - 1);
+                return Double.parseDouble(number) * multipliers[i];
+            }
+        }
+        return Double.parseDouble(quantity);
+    }
+
+    public static long parseBytes(String quantity) {
+        String[] suffixes = {"Ki", "Mi", "Gi", "Ti", "k", "M", "G", "T"};
+        double[] multipliers = {0x1p10, 0x1p20, 0x1p30, 0x1p40, 1e3, 1e6, 1e9, 1e12};
+        for (int i = 0; i < suffixes.length; i++) {
+            if (quantity.endsWith(suffixes[i])) {
+                String number = quantity.substring(0, quantity.length() - suffixes[i].length());
+                return (long) (Double.parseDouble(number) * multipliers[i]);
+            }
+        }
+        return Long.parseLong(quantity);
+    }
+
+    static final Entity<Resources, ResourcesBuilder> ENTITY =
+            Entity.of(
+                    "resources",
+                    ResourcesBuilder::new,
+                    Attribute.of(
+                            "component", Resources::getComponent, ResourcesBuilder::setComponent),
+                    Attribute.ofOptional("cpu", Resources::getCpu, ResourcesBuilder::setCpu),
+                    Attribute.ofOptional(
+                            "memory", Resources::getMemory, ResourcesBuilder::setMemory),
+                    Attribute.ofOptional("disk", Resources::getDisk, ResourcesBuilder::setDisk),
+                    Attribute.ofOptional(
+                            "cpuLimit", Resources::getCpuLimit, ResourcesBuilder::setCpuLimit),
+                    Attribute.ofOptional(
+                            "memoryLimit",
+                            Resources::getMemoryLimit,
+                            ResourcesBuilder::setMemoryLimit),
+                    Attribute.ofOptional(
+                            "workVolume",
+                            Resources::getWorkVolume,
+                            ResourcesBuilder::setWorkVolume));
+}
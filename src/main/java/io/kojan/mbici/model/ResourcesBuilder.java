@@ -0,0 +1,61 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.model;
+
+import io.kojan.xml.Builder;
+
+public class ResourcesBuilder implements Builder<Resources> {
+    private String component;
+    private String cpu;
+    private String memory;
+    private String disk;
+    private String cpuLimit;
+    private String memoryLimit;
+    private String workVolume;
+
+    public void setComponent(String component) {
+        this.component = component;
+    }
+
+    public void setCpu(String cpu) {
+        this.cpu = cpu;
+    }
+
+    public void setMemory(String memory) {
+        this.memory = memory;
+    }
+
+    public void setDisk(String disk) {
+        this.disk = disk;
+    }
+
+    public void setCpuLimit(String cpuLimit) {
+        this.cpuLimit = cpuLimit;
+    }
+
+    public void setMemoryLimit(String memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    public void setWorkVolume(String workVolume) {
+        this.workVolume = workVolume;
+    }
+
+    @Override
+    public Resources build() {
+        return new Resources(component, cpu, memory, disk, cpuLimit, memoryLimit, workVolume);
+    }
+}
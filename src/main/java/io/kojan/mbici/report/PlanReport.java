@@ -66,6 +66,26 @@ public class PlanReport extends Report {
                     component -> component);
         }
 
+        subtitle("Resources");
+        list(
+                "Resource requirements declared for builds of particular components:",
+                "There are no component-specific resource requirements.",
+                plan.getResources(),
+                res ->
+                        res.getComponent()
+                                + ": cpu "
+                                + res.getCpu()
+                                + ", memory "
+                                + res.getMemory()
+                                + ", disk "
+                                + res.getDisk()
+                                + ", cpu limit "
+                                + res.getCpuLimit()
+                                + ", memory limit "
+                                + res.getMemoryLimit()
+                                + ", work volume "
+                                + res.getWorkVolume());
+
         footer();
     }
 }
@@ -19,6 +19,8 @@ import io.kojan.mbici.AbstractCommand;
 import io.kojan.mbici.Main;
 import io.kojan.mbici.cache.ArtifactType;
 import io.kojan.mbici.cache.CacheManager;
+import io.kojan.mbici.cache.LogFiles;
+import io.kojan.mbici.execute.WorkflowJournal;
 import io.kojan.mbici.model.Plan;
 import io.kojan.mbici.model.Platform;
 import io.kojan.mbici.model.Subject;
@@ -28,6 +30,7 @@ import io.kojan.workflow.model.Result;
 import io.kojan.workflow.model.Task;
 import io.kojan.workflow.model.TaskOutcome;
 import io.kojan.workflow.model.Workflow;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -163,7 +166,7 @@ public class ReportCommand extends AbstractCommand {
         Plan plan = Plan.readFromXML(planPath);
         Platform platform = Platform.readFromXML(platformPath);
         Subject subject = Subject.readFromXML(subjectPath);
-        Workflow workflow = Workflow.readFromXML(workflowPath);
+        Workflow workflow = WorkflowJournal.read(workflowPath);
 
         if (!quiet) {
             System.err.println("Publishing platform.xml");
@@ -212,12 +215,15 @@ public class ReportCommand extends AbstractCommand {
                 if (artifact.getType().equals(ArtifactType.LOG)
                         || artifact.getType().equals(ArtifactType.CONFIG)) {
                     Files.createDirectories(subDir);
+                    // Compressed logs are published decompressed, so that they
+                    // can be viewed in web browser
+                    String name = LogFiles.getPlainName(artifact.getName());
                     if (!quiet) {
-                        System.err.println(
-                                "Publishing " + result.getTaskId() + "/" + artifact.getName());
+                        System.err.println("Publishing " + result.getTaskId() + "/" + name);
+                    }
+                    try (OutputStream os = Files.newOutputStream(subDir.resolve(name))) {
+                        LogFiles.copy(finishedTask.getArtifact(artifact), os);
                     }
-                    Files.copy(
-                            finishedTask.getArtifact(artifact), subDir.resolve(artifact.getName()));
                 }
             }
         }
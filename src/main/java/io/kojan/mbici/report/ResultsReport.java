@@ -16,6 +16,7 @@
 package io.kojan.mbici.report;
 
 import io.kojan.mbici.cache.ArtifactType;
+import io.kojan.mbici.cache.LogFiles;
 import io.kojan.workflow.model.Artifact;
 import io.kojan.workflow.model.Result;
 import io.kojan.workflow.model.TaskOutcome;
@@ -54,10 +55,8 @@ public class ResultsReport extends Report {
                 for (Artifact artifact : result.getArtifacts()) {
                     if (artifact.getType().equals(ArtifactType.LOG)
                             || artifact.getType().equals(ArtifactType.CONFIG)) {
-                        add(
-                                link(
-                                        result.getTaskId() + "/" + artifact.getName(),
-                                        artifact.getName()));
+                        String name = LogFiles.getPlainName(artifact.getName());
+                        add(link(result.getTaskId() + "/" + name, name));
                     }
                 }
                 add(")</li>");
@@ -16,6 +16,7 @@
 package io.kojan.mbici.report;
 
 import io.kojan.mbici.cache.ArtifactType;
+import io.kojan.mbici.cache.LogFiles;
 import io.kojan.workflow.model.Artifact;
 import io.kojan.workflow.model.Result;
 import io.kojan.workflow.model.TaskOutcome;
@@ -73,7 +74,8 @@ public class TmtResultsReport extends Report {
             for (Artifact artifact : result.getArtifacts()) {
                 if (artifact.getType().equals(ArtifactType.LOG)
                         || artifact.getType().equals(ArtifactType.CONFIG)) {
-                    add("    - " + result.getTaskId() + "/" + artifact.getName());
+                    String name = LogFiles.getPlainName(artifact.getName());
+                    add("    - " + result.getTaskId() + "/" + name);
                 }
             }
         }
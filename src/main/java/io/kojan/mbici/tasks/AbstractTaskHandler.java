@@ -15,12 +15,17 @@
  */
 package io.kojan.mbici.tasks;
 
+import io.kojan.mbici.cache.BlobStore;
 import io.kojan.mbici.cache.CacheManager;
 import io.kojan.workflow.TaskHandler;
+import io.kojan.workflow.TaskTermination;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /// @author Mikolaj Izdebski
 public abstract class AbstractTaskHandler implements TaskHandler {
     private CacheManager cacheManager;
+    private MockOptions mockOptions = new MockOptions();
 
     public CacheManager getCacheManager() {
         return cacheManager;
@@ -29,4 +34,31 @@ public abstract class AbstractTaskHandler implements TaskHandler {
     public void setCacheManager(CacheManager cacheManager) {
         this.cacheManager = cacheManager;
     }
+
+    public MockOptions getMockOptions() {
+        return mockOptions;
+    }
+
+    public void setMockOptions(MockOptions mockOptions) {
+        this.mockOptions = mockOptions;
+    }
+
+    Mock createMock() {
+        return new Mock(cacheManager, mockOptions);
+    }
+
+    /// Deduplicates given result file against the content-addressed blob store.
+    protected void storeBlob(Path path) throws TaskTermination {
+        if (cacheManager == null) {
+            return;
+        }
+        try {
+            BlobStore blobStore = cacheManager.getBlobStore();
+            if (blobStore != null) {
+                blobStore.deduplicate(path);
+            }
+        } catch (IOException e) {
+            TaskTermination.error("I/O error when storing blob " + path + ": " + e.getMessage());
+        }
+    }
 }
@@ -25,6 +25,8 @@ import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -74,15 +76,59 @@ public class CheckoutTaskHandler extends AbstractTaskHandler {
 
     private void runGit(String logName, TaskExecutionContext context, String... args)
             throws TaskTermination {
+        runGit(logName, context, context.getWorkDir().resolve("git"), args);
+    }
+
+    private void runGit(String logName, TaskExecutionContext context, Path gitDir, String... args)
+            throws TaskTermination {
         Command git = new Command("git");
         git.setName(logName);
-        git.addArg("--git-dir", context.getWorkDir().resolve("git").toString());
+        git.addArg("--git-dir", gitDir.toString());
         git.addArg(args);
         git.run(context, GIT_TIMEOUT);
     }
 
+    /// Makes sure that the shared mirror of SCM repository contains the commit.
+    private void updateMirror(TaskExecutionContext context, Path mirror)
+            throws TaskTermination, IOException {
+        if (!Files.exists(mirror)) {
+            Path pendingMirror = getCacheManager().createPending("mirror-");
+            runGit("git-mirror-init", context, pendingMirror, "init", "--bare");
+            Files.move(pendingMirror, mirror, StandardCopyOption.ATOMIC_MOVE);
+        }
+        try {
+            runGit("git-cat-file", context, mirror, "cat-file", "-e", commit + "^{commit}");
+            return;
+        } catch (TaskTermination e) {
+            // Commit is not in the mirror yet
+        }
+        try {
+            // Commit is kept under a ref, so that it is not pruned and later
+            // fetches can advertise it and download only what is new
+            runGit(
+                    "git-fetch-commit",
+                    context,
+                    mirror,
+                    "-c",
+                    "http.version=HTTP/1.1",
+                    "fetch",
+                    scm,
+                    "+" + commit + ":refs/mbici/" + commit);
+        } catch (TaskTermination e) {
+            // Server does not allow fetching commits by ID, fetch all branches instead
+            runGit(
+                    "git-fetch",
+                    context,
+                    mirror,
+                    "-c",
+                    "http.version=HTTP/1.1",
+                    "fetch",
+                    scm,
+                    "+refs/heads/*:refs/heads/*");
+        }
+    }
+
     public void handleTask0(TaskExecutionContext context) throws TaskTermination, IOException {
-        Curl curl = new Curl(context);
         Path dgCache = getCacheManager().getDistGit(commit);
 
         Path artifact = context.addArtifact(ArtifactType.CHECKOUT, "checkout");
@@ -93,51 +139,55 @@ public class CheckoutTaskHandler extends AbstractTaskHandler {
                     "I/O error when linking artifact " + artifact + ": " + e.getMessage());
         }
 
+        // Concurrent checkouts of the same commit wait for the first one to finish
+        getCacheManager().singleFlight("distgit-" + commit, () -> checkout(context, dgCache));
+    }
+
+    private void checkout(TaskExecutionContext context, Path dgCache)
+            throws TaskTermination, IOException {
         if (Files.exists(dgCache)) {
             TaskTermination.success("Commit was found in dist-git cache");
             return;
         }
+        Path mirror = getCacheManager().getGitMirror(scm);
+        getCacheManager()
+                .singleFlight(
+                        mirror.getFileName().toString(), () -> updateMirror(context, mirror));
         Path workTree = getCacheManager().createPending("checkout-" + commit);
         runGit("git-init", context, "init", "--bare");
-        runGit(
-                "git-fetch",
-                context,
-                "-c",
-                "http.version=HTTP/1.1",
-                "remote",
-                "add",
-                "--fetch",
-                "origin",
-                scm);
+        // Task repo borrows objects from the mirror instead of fetching them
+        Files.writeString(
+                context.getWorkDir().resolve("git").resolve("objects/info/alternates"),
+                mirror.resolve("objects") + "\n");
         Files.createDirectories(workTree);
         runGit("git-reset", context, "--work-tree", workTree.toString(), "reset", "--hard", commit);
+        Map<String, String> sources = new LinkedHashMap<>();
         for (String line : Files.readAllLines(workTree.resolve("sources"))) {
             Pattern pattern = Pattern.compile("^SHA512 \\(([^)]+)\\) = ([0-9a-f]{128})$");
             Matcher matcher = pattern.matcher(line);
             if (matcher.matches()) {
-                String fileName = matcher.group(1);
-                String hash = matcher.group(2);
-                Path lasCache = getCacheManager().getLookaside(hash);
-                Path downloadPath = workTree.resolve(fileName);
-                if (!Files.exists(lasCache)) {
-                    String url = lookaside + "/" + fileName + "/sha512/" + hash + "/" + fileName;
-                    curl.downloadFile(url, downloadPath);
-                    Files.move(
-                            downloadPath,
-                            lasCache,
-                            StandardCopyOption.ATOMIC_MOVE,
-                            StandardCopyOption.REPLACE_EXISTING);
-                }
-                Files.createLink(downloadPath, lasCache);
+                sources.put(matcher.group(1), matcher.group(2));
             }
         }
+        LookasideDownloader downloader = new LookasideDownloader(context, getCacheManager());
+        for (var source : sources.entrySet()) {
+            String fileName = source.getKey();
+            String hash = source.getValue();
+            String url = lookaside + "/" + fileName + "/sha512/" + hash + "/" + fileName;
+            downloader.addDownload(fileName, url, hash);
+        }
+        downloader.run();
+        for (var source : sources.entrySet()) {
+            Path lasCache = getCacheManager().getLookaside(source.getValue());
+            Files.createLink(workTree.resolve(source.getKey()), lasCache);
+        }
 
         try {
             Files.move(workTree, dgCache, StandardCopyOption.ATOMIC_MOVE);
         } catch (FileAlreadyExistsException e) {
-            // Checkout was completed by a concurrent task, lets reuse its
-            // results
-            // TODO: remove workTree - don't leave garbage behind
+            // Checkout was completed by a process not using the cache lock,
+            // lets reuse its results
+            getCacheManager().discardPending(workTree);
             TaskTermination.success("Commit was found in dist-git cache");
             return;
         }
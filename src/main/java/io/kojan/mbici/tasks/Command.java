@@ -16,14 +16,17 @@
 package io.kojan.mbici.tasks;
 
 import io.kojan.mbici.cache.ArtifactType;
+import io.kojan.mbici.cache.LogPolicy;
+import io.kojan.mbici.cache.LogWriter;
 import io.kojan.workflow.TaskExecutionContext;
 import io.kojan.workflow.TaskTermination;
-import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.lang.ProcessBuilder.Redirect;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -32,9 +35,18 @@ import java.util.concurrent.TimeUnit;
 /// @author Mikolaj Izdebski
 public class Command {
     public static Kubernetes kubernetes;
+    public static LogPolicy logPolicy = LogPolicy.DEFAULT;
+
+    private static final long SAMPLING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_INFRA_ATTEMPTS = 3;
+    private static final int POD_DELETE_TIMEOUT = 300;
+    private static final Duration INFRA_RETRY_DELAY = Duration.ofSeconds(10);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(10);
+    private static final int CAPTURE_SIZE = 64 * 1024;
 
     private String name;
     private final List<String> cmd = new ArrayList<>();
+    private final List<Path> nodeLocalDirs = new ArrayList<>();
 
     public Command(String name, String... args) {
         this.name = name;
@@ -52,6 +64,19 @@ public class Command {
         cmd.addAll(args);
     }
 
+    /// Returns path that remote command should read contents of given result
+    /// directory from. When node-local cache is enabled on Kubernetes, the
+    /// directory is copied to the node running the command, unless it is
+    /// already there.
+    public Path addNodeLocalDir(Path dir) {
+        Path nodeLocalPath = kubernetes != null ? kubernetes.getNodeLocalPath(dir) : null;
+        if (nodeLocalPath == null) {
+            return dir;
+        }
+        nodeLocalDirs.add(dir);
+        return nodeLocalPath;
+    }
+
     public List<String> getArgs() {
         return Collections.unmodifiableList(cmd);
     }
@@ -60,59 +85,150 @@ public class Command {
         this.name = name;
     }
 
-    private void runImpl(TaskExecutionContext context, int timeoutSeconds, boolean remote)
-            throws TaskTermination {
-        remote &= kubernetes != null;
-
-        List<String> actualCommand = cmd;
+    private boolean waitFor(
+            Process process, TaskExecutionContext context, int timeoutSeconds, boolean remote)
+            throws InterruptedException {
         if (remote) {
-            actualCommand = kubernetes.wrapCommand(context, cmd);
+            // Resources used by remote processes are not visible on this host
+            return process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
         }
-
-        Path logPath = context.addArtifact(ArtifactType.LOG, name + ".log");
-
-        try (BufferedWriter bw = Files.newBufferedWriter(logPath, StandardOpenOption.CREATE_NEW)) {
-            String intro =
-                    remote ? "Running remote command on Kubernetes" : "Running local command";
-            bw.write(intro + ": " + String.join(" ", cmd) + "\n\n");
-        } catch (IOException e) {
-            TaskTermination.error("I/O error while initializing log file: " + e.getMessage());
-            return;
+        ResourceUsage usage = ResourceUsage.of(context.getTask().getId());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        try {
+            while (true) {
+                usage.sample(process.toHandle());
+                long remaining = deadline - System.nanoTime();
+                if (process.waitFor(
+                        Math.min(remaining, SAMPLING_INTERVAL_NANOS), TimeUnit.NANOSECONDS)) {
+                    return true;
+                }
+                if (remaining <= SAMPLING_INTERVAL_NANOS) {
+                    return false;
+                }
+            }
+        } finally {
+            usage.finish();
         }
+    }
 
-        Redirect logRedirect = Redirect.appendTo(logPath.toFile());
+    private int runProcess(
+            TaskExecutionContext context,
+            List<String> actualCommand,
+            OutputStream log,
+            int timeoutSeconds,
+            boolean remote)
+            throws TaskTermination {
         ProcessBuilder pb = new ProcessBuilder(actualCommand);
         pb.redirectInput(Path.of("/dev/null").toFile());
-        pb.redirectOutput(logRedirect);
-        pb.redirectError(logRedirect);
+        pb.redirectErrorStream(true);
 
         Process process;
         try {
             process = pb.start();
         } catch (IOException e) {
             TaskTermination.error("I/O error while trying to run command: " + e.getMessage());
-            return;
+            return -1;
         }
+        OutputPump pump = new OutputPump(process.getInputStream(), log);
+        pump.start();
         try {
-            if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+            if (!waitFor(process, context, timeoutSeconds, remote)) {
                 TaskTermination.error("Timeout waiting for " + name);
-                return;
+                return -1;
             }
         } catch (InterruptedException e) {
             TaskTermination.error("Interrupted while waiting for command to finish");
         } finally {
             process.destroy();
+            pump.finish();
+        }
+        if (pump.getError() != null) {
+            TaskTermination.error("I/O error while writing log file: " + pump.getError());
+        }
+
+        return process.exitValue();
+    }
+
+    /// Runs the command once, throwing if it fails because of Kubernetes
+    /// cluster rather than the command itself.
+    private int runAttempt(
+            TaskExecutionContext context, OutputStream log, int timeoutSeconds, boolean remote)
+            throws TaskTermination, InfrastructureFailure {
+        if (remote && kubernetes.hasApiClient()) {
+            return kubernetes.runPod(context, cmd, nodeLocalDirs, log, timeoutSeconds);
+        }
+        if (!remote) {
+            return runProcess(context, cmd, log, timeoutSeconds, false);
+        }
+        List<String> actualCommand = kubernetes.wrapCommand(context, cmd, nodeLocalDirs);
+        OutputCapture capture = new OutputCapture(log);
+        int exitCode = runProcess(context, actualCommand, capture, timeoutSeconds, true);
+        InfrastructureFailure failure =
+                Kubernetes.classifyKubectlFailure(exitCode, capture.getOutput());
+        if (failure != null) {
+            // Pod may still be running, writing to the same result directory
+            try {
+                runProcess(
+                        context,
+                        kubernetes.getDeletePodCommand(context),
+                        log,
+                        POD_DELETE_TIMEOUT,
+                        true);
+            } catch (TaskTermination e) {
+                // Next attempt fails too if the Pod is still there
+            }
+            throw failure;
+        }
+        return exitCode;
+    }
+
+    private int runAttempts(
+            TaskExecutionContext context, LogWriter log, int timeoutSeconds, boolean remote)
+            throws TaskTermination, IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return runAttempt(context, log, timeoutSeconds, remote);
+            } catch (InfrastructureFailure e) {
+                log.write("\nInfrastructure failure: " + e.getMessage() + "\n");
+                if (attempt >= MAX_INFRA_ATTEMPTS || !kubernetes.consumeInfraRetry()) {
+                    TaskTermination.error("Infrastructure failure: " + e.getMessage());
+                    return -1;
+                }
+                if (e.isOutOfMemory()) {
+                    kubernetes.escalateMemory(context.getTask());
+                }
+                log.write("Retrying, attempt " + (attempt + 1) + "\n\n");
+                try {
+                    Thread.sleep(INFRA_RETRY_DELAY.multipliedBy(attempt));
+                } catch (InterruptedException ie) {
+                    TaskTermination.error("Interrupted while waiting to retry " + name);
+                    return -1;
+                }
+            }
         }
+    }
+
+    private void runImpl(TaskExecutionContext context, int timeoutSeconds, boolean remote)
+            throws TaskTermination {
+        remote &= kubernetes != null;
+
+        Path logPath =
+                context.addArtifact(ArtifactType.LOG, logPolicy.getArtifactName(name + ".log"));
 
-        try (BufferedWriter bw = Files.newBufferedWriter(logPath, StandardOpenOption.APPEND)) {
-            bw.write("\nCommand returned exit code " + process.exitValue() + "\n");
+        int exitCode;
+        try (LogWriter log = new LogWriter(logPath, logPolicy)) {
+            String intro =
+                    remote ? "Running remote command on Kubernetes" : "Running local command";
+            log.write(intro + ": " + String.join(" ", cmd) + "\n\n");
+            exitCode = runAttempts(context, log, timeoutSeconds, remote);
+            log.write("\nCommand returned exit code " + exitCode + "\n");
         } catch (IOException e) {
-            TaskTermination.error("I/O error while finishing log file: " + e.getMessage());
+            TaskTermination.error("I/O error while writing log file: " + e.getMessage());
             return;
         }
 
-        if (process.exitValue() != 0) {
-            TaskTermination.fail(name + " exited with code " + process.exitValue());
+        if (exitCode != 0) {
+            TaskTermination.fail(name + " exited with code " + exitCode);
             return;
         }
     }
@@ -124,4 +240,87 @@ public class Command {
     public void runRemote(TaskExecutionContext context, int timeoutSeconds) throws TaskTermination {
         runImpl(context, timeoutSeconds, true);
     }
+
+    /// Copies output of a process to the log as it is produced.
+    private static class OutputPump extends Thread {
+        private final InputStream input;
+        private final OutputStream output;
+        private volatile boolean closed;
+        private IOException error;
+
+        OutputPump(InputStream input, OutputStream output) {
+            this.input = input;
+            this.output = output;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try (input) {
+                input.transferTo(output);
+            } catch (IOException e) {
+                if (!closed) {
+                    error = e;
+                }
+            }
+        }
+
+        /// Waits for remaining output to be copied. Processes spawned by the
+        /// command may keep the pipe open after it exits, so their output is
+        /// dropped after a while.
+        void finish() {
+            try {
+                join(DRAIN_TIMEOUT.toMillis());
+                if (isAlive()) {
+                    closed = true;
+                    input.close();
+                    join();
+                }
+            } catch (InterruptedException | IOException e) {
+                interrupt();
+            }
+        }
+
+        IOException getError() {
+            return error;
+        }
+    }
+
+    /// Passes output to the log, keeping its most recent part in memory.
+    private static class OutputCapture extends FilterOutputStream {
+        private final byte[] buffer = new byte[CAPTURE_SIZE];
+        private int pos;
+        private boolean wrapped;
+
+        OutputCapture(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            for (int i = off; i < off + len; i++) {
+                buffer[pos++] = b[i];
+                if (pos == buffer.length) {
+                    pos = 0;
+                    wrapped = true;
+                }
+            }
+        }
+
+        String getOutput() {
+            if (!wrapped) {
+                return new String(buffer, 0, pos, StandardCharsets.UTF_8);
+            }
+            byte[] ordered = new byte[buffer.length];
+            System.arraycopy(buffer, pos, ordered, 0, buffer.length - pos);
+            System.arraycopy(buffer, 0, ordered, buffer.length - pos, pos);
+            return new String(ordered, StandardCharsets.UTF_8);
+        }
+    }
 }
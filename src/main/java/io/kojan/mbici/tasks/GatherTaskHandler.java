@@ -104,7 +104,9 @@ public class GatherTaskHandler extends AbstractTaskHandler {
                                         && !p.getFileName().toString().endsWith(".src.rpm")
                                         && bfa.isRegularFile())) {
             for (var it = s.iterator(); it.hasNext(); ) {
-                context.addArtifact(ArtifactType.RPM, it.next().getFileName().toString());
+                Path rpmPath = it.next();
+                storeBlob(rpmPath);
+                context.addArtifact(ArtifactType.RPM, rpmPath.getFileName().toString());
             }
         } catch (IOException e) {
             throw TaskTermination.error("I/O error when looknig for RPM files: " + e.getMessage());
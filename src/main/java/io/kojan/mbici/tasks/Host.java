@@ -0,0 +1,58 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.tasks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class Host {
+
+    public static int getCpuCount() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    private static long readMemInfo(String key) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/meminfo"))) {
+                // Example line: "MemTotal:       32562316 kB"
+                if (line.startsWith(key + ":")) {
+                    String[] fields = line.substring(key.length() + 1).trim().split("\\s+");
+                    return Long.parseLong(fields[0]) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Fall through
+        }
+        throw new RuntimeException("Unable to determine " + key + " from /proc/meminfo");
+    }
+
+    public static long getTotalMemory() {
+        return readMemInfo("MemTotal");
+    }
+
+    public static long getAvailableMemory() {
+        return readMemInfo("MemAvailable");
+    }
+
+    public static long getUsableDiskSpace(Path path) {
+        try {
+            return Files.getFileStore(path).getUsableSpace();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to determine usable disk space at " + path, e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.tasks;
+
+/// Failure of remote command caused by Kubernetes cluster rather than by the
+/// command itself, such as Pod eviction, container being killed or loss of
+/// connection to the cluster. Such commands are worth retrying.
+class InfrastructureFailure extends Exception {
+    private static final long serialVersionUID = 1;
+
+    private final boolean outOfMemory;
+
+    public InfrastructureFailure(String message, boolean outOfMemory) {
+        super(message);
+        this.outOfMemory = outOfMemory;
+    }
+
+    /// Returns whether the command was killed for exceeding its memory limit.
+    public boolean isOutOfMemory() {
+        return outOfMemory;
+    }
+}
@@ -0,0 +1,297 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.tasks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+/// Client of Kubernetes REST API.
+///
+/// All requests are multiplexed over a single HTTP client, so the number of
+/// connections does not grow with the number of Pods.
+public class KubeClient {
+    private static final Path SERVICE_ACCOUNT_DIR =
+            Path.of("/var/run/secrets/kubernetes.io/serviceaccount");
+
+    private static final String EXEC_PROTOCOL = "v4.channel.k8s.io";
+    private static final byte STDOUT = 1;
+    private static final byte STDERR = 2;
+    private static final byte ERROR = 3;
+
+    private final String apiServer;
+    private final Path tokenFile;
+    private final HttpClient client;
+
+    /// Creates client of API server at given URL, optionally authenticating
+    /// with bearer token read from a file and trusting given CA certificates.
+    public KubeClient(String apiServer, Path tokenFile, Path caFile)
+            throws IOException, GeneralSecurityException {
+        this.apiServer = apiServer.replaceAll("/+$", "");
+        this.tokenFile = tokenFile;
+        HttpClient.Builder builder =
+                HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30));
+        if (caFile != null) {
+            builder.sslContext(createSslContext(caFile));
+        }
+        client = builder.build();
+    }
+
+    /// Returns whether this process runs in a Kubernetes Pod with service
+    /// account credentials mounted.
+    public static boolean isInCluster() {
+        return System.getenv("KUBERNETES_SERVICE_HOST") != null
+                && Files.exists(SERVICE_ACCOUNT_DIR.resolve("token"));
+    }
+
+    /// Creates client authenticated with service account of current Pod.
+    public static KubeClient inCluster() throws IOException, GeneralSecurityException {
+        String host = System.getenv("KUBERNETES_SERVICE_HOST");
+        String port = System.getenv().getOrDefault("KUBERNETES_SERVICE_PORT", "443");
+        if (host.contains(":")) {
+            host = "[" + host + "]";
+        }
+        return new KubeClient(
+                "https://" + host + ":" + port,
+                SERVICE_ACCOUNT_DIR.resolve("token"),
+                SERVICE_ACCOUNT_DIR.resolve("ca.crt"));
+    }
+
+    /// Returns namespace of current Pod, or `null` if not running in cluster.
+    public static String getInClusterNamespace() throws IOException {
+        Path namespaceFile = SERVICE_ACCOUNT_DIR.resolve("namespace");
+        return Files.exists(namespaceFile) ? Files.readString(namespaceFile).strip() : null;
+    }
+
+    private static SSLContext createSslContext(Path caFile)
+            throws IOException, GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(null, null);
+        CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        try (InputStream is = Files.newInputStream(caFile)) {
+            int i = 0;
+            for (Certificate cert : cf.generateCertificates(is)) {
+                keyStore.setCertificateEntry("ca-" + i++, cert);
+            }
+        }
+        TrustManagerFactory tmf =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(keyStore);
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, tmf.getTrustManagers(), null);
+        return sslContext;
+    }
+
+    private HttpRequest.Builder request(String path) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(apiServer + path));
+        if (tokenFile != null) {
+            // Service account tokens are rotated, so always use the current one
+            builder.header("Authorization", "Bearer " + Files.readString(tokenFile).strip());
+        }
+        return builder;
+    }
+
+    /// Sends request with optional JSON body and returns response, whatever
+    /// its status code is.
+    public HttpResponse<String> send(String method, String path, String json)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder builder = request(path).timeout(Duration.ofSeconds(60));
+        if (json != null) {
+            builder.header("Content-Type", "application/json");
+            builder.method(method, BodyPublishers.ofString(json));
+        } else {
+            builder.method(method, BodyPublishers.noBody());
+        }
+        return client.send(builder.build(), BodyHandlers.ofString());
+    }
+
+    private static String checkStatus(HttpResponse<String> resp, String method, String path)
+            throws IOException {
+        if (resp.statusCode() / 100 != 2) {
+            throw new IOException(
+                    method + " " + path + " failed with HTTP status " + resp.statusCode());
+        }
+        return resp.body();
+    }
+
+    public Object get(String path) throws IOException, InterruptedException {
+        return Json.parse(getText(path));
+    }
+
+    public String getText(String path) throws IOException, InterruptedException {
+        return checkStatus(send("GET", path, null), "GET", path);
+    }
+
+    /// Opens stream of response body, for reading large responses like Pod
+    /// logs without holding them in memory.
+    public InputStream open(String path) throws IOException, InterruptedException {
+        HttpResponse<InputStream> resp =
+                client.send(request(path).GET().build(), BodyHandlers.ofInputStream());
+        if (resp.statusCode() / 100 != 2) {
+            resp.body().close();
+            throw new IOException("GET " + path + " failed with HTTP status " + resp.statusCode());
+        }
+        return resp.body();
+    }
+
+    public Object post(String path, String json) throws IOException, InterruptedException {
+        return Json.parse(checkStatus(send("POST", path, json), "POST", path));
+    }
+
+    /// Deletes object at given path, ignoring it if it does not exist.
+    public void delete(String path) throws IOException, InterruptedException {
+        HttpResponse<String> resp = send("DELETE", path, null);
+        if (resp.statusCode() != 404) {
+            checkStatus(resp, "DELETE", path);
+        }
+    }
+
+    /// Opens a watch and returns stream of its events, one JSON object per line.
+    public Stream<String> watch(String path) throws IOException, InterruptedException {
+        HttpResponse<Stream<String>> resp =
+                client.send(request(path).GET().build(), BodyHandlers.ofLines());
+        if (resp.statusCode() / 100 != 2) {
+            resp.body().close();
+            throw new IOException(
+                    "Watch " + path + " failed with HTTP status " + resp.statusCode());
+        }
+        return resp.body();
+    }
+
+    /// Receives output and status of a command executed in a container.
+    private static class ExecListener implements WebSocket.Listener {
+        private final OutputStream output;
+        private final ByteArrayOutputStream message = new ByteArrayOutputStream();
+        private final CompletableFuture<String> status = new CompletableFuture<>();
+
+        ExecListener(OutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            message.writeBytes(bytes);
+            if (last) {
+                byte[] frame = message.toByteArray();
+                message.reset();
+                // First byte of each message identifies its channel
+                if (frame.length > 0 && (frame[0] == STDOUT || frame[0] == STDERR)) {
+                    try {
+                        output.write(frame, 1, frame.length - 1);
+                    } catch (IOException e) {
+                        status.completeExceptionally(e);
+                    }
+                } else if (frame.length > 0 && frame[0] == ERROR) {
+                    status.complete(
+                            new String(frame, 1, frame.length - 1, StandardCharsets.UTF_8));
+                }
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            status.completeExceptionally(
+                    new IOException("Exec stream closed without status: " + reason));
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            status.completeExceptionally(error);
+        }
+    }
+
+    private static int getExitCode(String statusJson) throws IOException {
+        Object status = Json.parse(statusJson);
+        if ("Success".equals(Json.get(status, "status"))) {
+            return 0;
+        }
+        if (Json.get(status, "details", "causes") instanceof List<?> causes) {
+            for (Object cause : causes) {
+                if ("ExitCode".equals(Json.get(cause, "reason"))) {
+                    return Integer.parseInt((String) Json.get(cause, "message"));
+                }
+            }
+        }
+        throw new IOException("Exec failed: " + Json.get(status, "message"));
+    }
+
+    /// Executes command in a running container, copying its standard output
+    /// and error to given stream, and returns its exit code.
+    public int exec(
+            String podPath,
+            String container,
+            List<String> command,
+            OutputStream output,
+            Duration timeout)
+            throws IOException, InterruptedException, TimeoutException {
+        StringBuilder query = new StringBuilder();
+        query.append("?container=").append(container).append("&stdout=true&stderr=true");
+        for (String arg : command) {
+            query.append("&command=").append(URLEncoder.encode(arg, StandardCharsets.UTF_8));
+        }
+        URI uri = URI.create(apiServer.replaceFirst("^http", "ws") + podPath + "/exec" + query);
+        WebSocket.Builder builder = client.newWebSocketBuilder().subprotocols(EXEC_PROTOCOL);
+        if (tokenFile != null) {
+            builder.header("Authorization", "Bearer " + Files.readString(tokenFile).strip());
+        }
+        ExecListener listener = new ExecListener(output);
+        WebSocket webSocket;
+        try {
+            webSocket = builder.buildAsync(uri, listener).get();
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to start exec: " + e.getCause().getMessage(), e);
+        }
+        try {
+            return getExitCode(listener.status.get(timeout.toNanos(), TimeUnit.NANOSECONDS));
+        } catch (ExecutionException e) {
+            throw new IOException("Exec failed: " + e.getCause().getMessage(), e);
+        } finally {
+            webSocket.abort();
+        }
+    }
+}
@@ -16,14 +16,84 @@
 package io.kojan.mbici.tasks;
 
 import io.kojan.mbici.cache.CacheManager;
+import io.kojan.mbici.cache.HistoryRecord;
+import io.kojan.mbici.generate.WorkflowFactory;
+import io.kojan.mbici.model.Plan;
+import io.kojan.mbici.model.Resources;
 import io.kojan.workflow.TaskExecutionContext;
 import io.kojan.workflow.TaskTermination;
 import io.kojan.workflow.model.Task;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /// @author Mikolaj Izdebski
 public class Kubernetes {
+    private static final String MANAGED_BY_LABEL = "app.kubernetes.io/managed-by";
+    private static final String TASK_LABEL = "mbici.kojan.io/task";
+    private static final String EXECUTION_LABEL = "mbici.kojan.io/execution";
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final Duration METRICS_INTERVAL = Duration.ofSeconds(15);
+    private static final double MEMORY_HEADROOM = 1.2;
+    private static final double MIN_LEARNED_CPU = 0.25;
+    private static final long MIB = 1L << 20;
+    private static final String WORKER_CPU_REQUEST = "250m";
+    private static final String WORKER_CPU_LIMIT = "1";
+    private static final String WORKER_MEMORY_REQUEST = "256Mi";
+    private static final String WORKER_MEMORY_LIMIT = "1Gi";
+    private static final String WORKER_WORK_VOLUME_SIZE = "256Mi";
+    private static final int SIGKILL_EXIT_CODE = 137;
+    private static final int SIGTERM_EXIT_CODE = 143;
+
+    /// Prefixes of lines that kubectl itself prints when it fails.
+    private static final List<String> KUBECTL_ERROR_PREFIXES =
+            List.of("error: ", "Error from server", "Unable to connect to the server");
+
+    /// Messages that kubectl prints when it fails to run or follow the Pod.
+    private static final List<String> KUBECTL_ERRORS =
+            List.of(
+                    "timed out waiting for the condition",
+                    "Error from server",
+                    "Unable to connect to the server",
+                    "unable to upgrade connection",
+                    "error dialing backend",
+                    "lost connection to pod");
+
+    /// Copies directories given as pairs of source and node-local path, unless
+    /// they were already copied, then runs the actual command. When a copy
+    /// can't be made, node-local path links to the source instead.
+    private static final String NODE_CACHE_PRELUDE =
+            "copy() {"
+                    + " [ -e \"$2\" ] && return;"
+                    + " mkdir -p \"$(dirname \"$2\")\";"
+                    + " tmp=\"$2.tmp.$$\";"
+                    + " if cp -a \"$1\" \"$tmp\" && mv -T \"$tmp\" \"$2\" 2>/dev/null; then"
+                    + " return;"
+                    + " fi;"
+                    + " rm -rf \"$tmp\";"
+                    + " [ -e \"$2\" ] || ln -sfn \"$1\" \"$2\";"
+                    + " };"
+                    + " n=$1; shift;"
+                    + " while [ \"$n\" -gt 0 ]; do copy \"$1\" \"$2\"; shift 2; n=$((n - 1)); done;"
+                    + " exec \"$@\"";
+
+    /// Identifies Pods created by this process, as other executions may run
+    /// their Pods in the same namespace.
+    private final String executionId = UUID.randomUUID().toString();
     private final CacheManager cacheManager;
     private final String namespace;
     private final String containerImage;
@@ -38,6 +108,30 @@ public class Kubernetes {
     private final String srpmMemoryLimit;
     private final String rpmMemoryRequest;
     private final String rpmMemoryLimit;
+    private KubeClient apiClient;
+    private PodWatcher podWatcher;
+    private int warmPoolSize;
+    private PodPool podPool;
+    private PodSizingMode sizingMode = PodSizingMode.FIXED;
+    private Map<String, String> componentsByTaskId = Map.of();
+    private final Map<String, Resources> resourcesByComponent = new LinkedHashMap<>();
+    private final Map<String, WorkVolumeType> workVolumesByComponent = new LinkedHashMap<>();
+    private volatile boolean metricsAvailable = true;
+    private volatile boolean quotasAvailable = true;
+    private Duration maxStartLatency = Duration.ZERO;
+    private Path nodeCacheDir;
+    private NodeTracker nodeTracker;
+    private WorkVolumeType srpmWorkVolumeType = WorkVolumeType.MEMORY;
+    private String srpmWorkVolumeSize;
+    private WorkVolumeType rpmWorkVolumeType = WorkVolumeType.MEMORY;
+    private String rpmWorkVolumeSize;
+    private String workVolumeStorageClass;
+    private Object tolerations;
+    private String priorityClassName;
+    private String runtimeClassName;
+    private final Map<String, PodTemplate> templates = new LinkedHashMap<>();
+    private final Map<String, Integer> memoryEscalations = new LinkedHashMap<>();
+    private int infraRetryBudget = 20;
 
     public Kubernetes(
             CacheManager cacheManager,
@@ -70,98 +164,328 @@ public class Kubernetes {
         this.rpmMemoryLimit = rpmMemoryLimit;
     }
 
-    public List<String> wrapCommand(TaskExecutionContext context, List<String> command)
-            throws TaskTermination {
-        Task task = context.getTask();
+    public void setApiClient(KubeClient apiClient) {
+        this.apiClient = apiClient;
+    }
+
+    /// Sets max number of worker Pods kept running for short commands. Zero
+    /// disables the pool, so that every command runs in a new Pod.
+    public void setWarmPoolSize(int warmPoolSize) {
+        this.warmPoolSize = warmPoolSize;
+    }
+
+    public void setSizingMode(PodSizingMode sizingMode) {
+        this.sizingMode = sizingMode;
+    }
+
+    /// Sets Plan that component-specific resource requirements are taken from.
+    public void setPlan(Plan plan) {
+        componentsByTaskId = WorkflowFactory.getComponentsByTaskId(plan);
+        for (Resources resources : plan.getResources()) {
+            resourcesByComponent.put(resources.getComponent(), resources);
+            // Plan is validated upfront, so that tasks don't fail on typos
+            if (resources.getWorkVolume() != null) {
+                try {
+                    workVolumesByComponent.put(
+                            resources.getComponent(),
+                            WorkVolumeType.valueOf(
+                                    resources.getWorkVolume().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(
+                            "Invalid work volume "
+                                    + resources.getWorkVolume()
+                                    + " of component "
+                                    + resources.getComponent()
+                                    + ", expected MEMORY, DISK or EPHEMERAL");
+                }
+            }
+        }
+    }
+
+    public void setSrpmWorkVolume(WorkVolumeType type, String size) {
+        this.srpmWorkVolumeType = type;
+        this.srpmWorkVolumeSize = size;
+    }
+
+    public void setRpmWorkVolume(WorkVolumeType type, String size) {
+        this.rpmWorkVolumeType = type;
+        this.rpmWorkVolumeSize = size;
+    }
+
+    /// Sets storage class that ephemeral work volumes are provisioned from,
+    /// `null` meaning the default storage class.
+    public void setWorkVolumeStorageClass(String workVolumeStorageClass) {
+        this.workVolumeStorageClass = workVolumeStorageClass;
+    }
+
+    /// Sets total number of times that commands may be retried after
+    /// infrastructure failures during the whole execution.
+    public synchronized void setInfraRetryBudget(int infraRetryBudget) {
+        this.infraRetryBudget = infraRetryBudget;
+    }
+
+    /// Takes one retry from the budget, returning `false` if it is used up.
+    synchronized boolean consumeInfraRetry() {
+        if (infraRetryBudget <= 0) {
+            return false;
+        }
+        infraRetryBudget--;
+        return true;
+    }
+
+    /// Doubles memory request and limit of Pods running given task, after it
+    /// was killed for running out of memory.
+    synchronized void escalateMemory(Task task) {
+        memoryEscalations.merge(task.getId(), 1, Integer::sum);
+    }
+
+    private synchronized int getMemoryEscalation(Task task) {
+        return memoryEscalations.getOrDefault(task.getId(), 0);
+    }
+
+    static boolean isKilled(int exitCode) {
+        return exitCode == SIGKILL_EXIT_CODE || exitCode == SIGTERM_EXIT_CODE;
+    }
+
+    /// Determines whether kubectl command failed because of the cluster rather
+    /// than the command it ran, based on its exit code and output. Returns
+    /// description of the failure, or `null` if it was a command failure.
+    static InfrastructureFailure classifyKubectlFailure(int exitCode, String output) {
+        if (isKilled(exitCode)) {
+            // Usually the container exceeded its memory limit
+            return new InfrastructureFailure(
+                    "Pod was killed with exit code " + exitCode, exitCode == SIGKILL_EXIT_CODE);
+        }
+        if (exitCode != 0) {
+            // kubectl reports its own errors after the output of the command,
+            // which may contain the same messages without the Pod failing
+            String line =
+                    output.lines().filter(l -> !l.isBlank()).reduce((a, b) -> b).orElse("");
+            if (KUBECTL_ERROR_PREFIXES.stream().anyMatch(line::startsWith)
+                    && KUBECTL_ERRORS.stream().anyMatch(line::contains)) {
+                return new InfrastructureFailure("kubectl failed: " + line.strip(), false);
+            }
+        }
+        return null;
+    }
+
+    /// Sets tolerations of all Pods, given as JSON array.
+    public void setTolerations(String tolerations) {
+        this.tolerations = Json.parse(tolerations);
+    }
+
+    public void setPriorityClassName(String priorityClassName) {
+        this.priorityClassName = priorityClassName;
+    }
+
+    public void setRuntimeClassName(String runtimeClassName) {
+        this.runtimeClassName = runtimeClassName;
+    }
+
+    /// Enables node-local cache in given directory of Kubernetes nodes, which
+    /// needs to exist on all nodes and be writable by the build user.
+    public void setNodeCacheDir(Path nodeCacheDir) {
+        this.nodeCacheDir = nodeCacheDir;
+        nodeTracker = new NodeTracker(cacheManager.getCacheRootDir().resolve("kube-nodes"));
+    }
+
+    /// Returns path at which contents of given result directory can be read
+    /// from node-local cache, or `null` if it can't be cached on nodes.
+    public Path getNodeLocalPath(Path dir) {
+        if (nodeCacheDir == null || !dir.startsWith(cacheManager.getResultRootDir())) {
+            return null;
+        }
+        Path relativePath = cacheManager.getResultRootDir().relativize(dir);
+        return nodeCacheDir.resolve("results").resolve(relativePath);
+    }
+
+    /// Returns whether Pods are managed through Kubernetes API directly,
+    /// rather than by running kubectl.
+    public boolean hasApiClient() {
+        return apiClient != null;
+    }
+
+    /// Returns a copy of Pod template for tasks of given handler.
+    private synchronized PodTemplate getTemplate(String handler) {
+        boolean srpm = handler.contains("Srpm");
+        PodTemplate template = templates.get(srpm ? "srpm" : "rpm");
+        if (template == null) {
+            template = new PodTemplate();
+            template.image = containerImage;
+            template.cpuRequest = srpm ? srpmCpuRequest : rpmCpuRequest;
+            template.cpuLimit = srpm ? srpmCpuLimit : rpmCpuLimit;
+            template.memoryRequest = srpm ? srpmMemoryRequest : rpmMemoryRequest;
+            template.memoryLimit = srpm ? srpmMemoryLimit : rpmMemoryLimit;
+            template.cacheDir = cacheManager.getCacheRootDir();
+            template.cacheClaimName = cacheVolumeClaimName;
+            template.resultDir = cacheManager.getResultRootDir();
+            template.resultClaimName = resultVolumeClaimName;
+            template.workDir = cacheManager.getWorkRootDir();
+            template.workVolumeType = srpm ? srpmWorkVolumeType : rpmWorkVolumeType;
+            template.workVolumeSize = srpm ? srpmWorkVolumeSize : rpmWorkVolumeSize;
+            template.workVolumeStorageClass = workVolumeStorageClass;
+            template.tolerations = tolerations;
+            template.priorityClassName = priorityClassName;
+            template.runtimeClassName = runtimeClassName;
+            templates.put(srpm ? "srpm" : "rpm", template);
+        }
+        return template.copy();
+    }
+
+    private static String max(String a, String b, ToDoubleFunction<String> parser) {
+        return parser.applyAsDouble(a) >= parser.applyAsDouble(b) ? a : b;
+    }
+
+    private static String min(String a, String b, ToDoubleFunction<String> parser) {
+        return parser.applyAsDouble(a) <= parser.applyAsDouble(b) ? a : b;
+    }
+
+    /// Returns template of Pod running given task. Resources declared for the
+    /// component in the Plan take precedence over resources learned from
+    /// previous runs in automatic mode, which take precedence over defaults
+    /// for the task handler.
+    private PodTemplate getTaskTemplate(Task task) throws IOException {
+        PodTemplate template = getTemplate(task.getHandler());
+        if (sizingMode == PodSizingMode.AUTO) {
+            HistoryRecord record = cacheManager.getHistoryStore().lookup(task.getId());
+            if (record != null && record.getPeakRss() > 0 && !record.getDuration().isZero()) {
+                double cpu =
+                        (double) record.getCpuTime().toMillis() / record.getDuration().toMillis();
+                long memory = (long) (record.getPeakRss() * MEMORY_HEADROOM);
+                template.cpuRequest = (long) Math.ceil(Math.max(cpu, MIN_LEARNED_CPU) * 1000) + "m";
+                template.memoryRequest = (memory + MIB - 1) / MIB + "Mi";
+                // Kubernetes rejects Pods with requests exceeding limits
+                template.cpuLimit =
+                        max(template.cpuLimit, template.cpuRequest, Resources::parseCpu);
+                template.memoryLimit =
+                        max(template.memoryLimit, template.memoryRequest, Resources::parseBytes);
+            }
+        }
+        String component = componentsByTaskId.get(task.getId());
+        Resources resources = component != null ? resourcesByComponent.get(component) : null;
+        if (resources != null) {
+            if (resources.getCpu() != null) {
+                template.cpuRequest = resources.getCpu();
+            }
+            if (resources.getCpuLimit() != null) {
+                template.cpuLimit = resources.getCpuLimit();
+            }
+            if (resources.getMemory() != null) {
+                template.memoryRequest = resources.getMemory();
+            }
+            if (resources.getMemoryLimit() != null) {
+                template.memoryLimit = resources.getMemoryLimit();
+            }
+            if (resources.getDisk() != null) {
+                template.workVolumeSize = resources.getDisk();
+            }
+            if (resources.getWorkVolume() != null) {
+                template.workVolumeType = workVolumesByComponent.get(component);
+            }
+        }
+        int escalation = getMemoryEscalation(task);
+        if (escalation > 0) {
+            long factor = 1L << escalation;
+            long memoryRequest = Resources.parseBytes(template.memoryRequest) * factor;
+            long memoryLimit = Resources.parseBytes(template.memoryLimit) * factor;
+            template.memoryRequest = (memoryRequest + MIB - 1) / MIB + "Mi";
+            template.memoryLimit = (memoryLimit + MIB - 1) / MIB + "Mi";
+        }
+        // Kubernetes rejects Pods with requests exceeding limits, which Plan
+        // may have lowered below learned requests
+        if (template.cpuRequest != null && template.cpuLimit != null) {
+            template.cpuRequest = min(template.cpuRequest, template.cpuLimit, Resources::parseCpu);
+        }
+        if (template.memoryRequest != null && template.memoryLimit != null) {
+            template.memoryRequest =
+                    min(template.memoryRequest, template.memoryLimit, Resources::parseBytes);
+        }
+        return template;
+    }
+
+    /// Returns size of memory-backed work volume of Pod running given task,
+    /// given default size if its size was not configured, or 0 if the work
+    /// volume is kept on disk.
+    public long getMemoryWorkVolumeSize(Task task, long defaultSize) throws IOException {
+        PodTemplate template = getTaskTemplate(task);
+        if (template.workVolumeType != WorkVolumeType.MEMORY) {
+            return 0;
+        }
+        return template.workVolumeSize != null
+                ? Resources.parseBytes(template.workVolumeSize)
+                : defaultSize;
+    }
+
+    private static List<String> getNodeKeys(Task task, List<Path> nodeLocalDirs) {
+        List<String> keys = new ArrayList<>();
+        keys.add("task:" + task.getId());
+        for (Path dir : nodeLocalDirs) {
+            keys.add("dir:" + dir);
+        }
+        return keys;
+    }
 
+    /// Returns spec of Pod running command of given task. Given result
+    /// directories are copied to node-local cache first, if it is enabled,
+    /// and nodes that already have them are preferred.
+    private Map<String, Object> getTaskPodSpec(
+            Task task, List<String> command, List<Path> nodeLocalDirs) throws IOException {
+        PodTemplate template = getTaskTemplate(task);
+        template.command = command;
+        if (nodeCacheDir == null) {
+            return template.toSpec();
+        }
+        List<String> wrapped = new ArrayList<>();
+        wrapped.add("/bin/sh");
+        wrapped.add("-c");
+        wrapped.add(NODE_CACHE_PRELUDE);
+        wrapped.add("sh");
+        wrapped.add(Integer.toString(nodeLocalDirs.size()));
+        for (Path dir : nodeLocalDirs) {
+            wrapped.add(dir.toString());
+            wrapped.add(getNodeLocalPath(dir).toString());
+        }
+        wrapped.addAll(command);
+        List<String> keys = getNodeKeys(task, nodeLocalDirs);
+        Map<String, Integer> nodes = new LinkedHashMap<>();
+        for (var entry : nodeTracker.lookup(keys).entrySet()) {
+            // Kubernetes accepts preference weights from 1 to 100
+            nodes.put(entry.getKey(), Math.max(1, 100 * entry.getValue() / keys.size()));
+        }
+        template.command = wrapped;
+        template.nodeCacheDir = nodeCacheDir;
+        template.preferredNodes = nodes;
+        return template.toSpec();
+    }
+
+    private static String getPodName(Task task) {
         // Kubernetes doesn't allow underscore in Pod names
-        String podName = task.getId().replace('_', '-');
-
-        String cpuRequest = task.getHandler().contains("Srpm") ? srpmCpuRequest : rpmCpuRequest;
-        String cpuLimit = task.getHandler().contains("Srpm") ? srpmCpuLimit : rpmCpuLimit;
-        String memRequest =
-                task.getHandler().contains("Srpm") ? srpmMemoryRequest : rpmMemoryRequest;
-        String memLimit = task.getHandler().contains("Srpm") ? srpmMemoryLimit : rpmMemoryLimit;
-
-        StringBuilder pod = new StringBuilder();
-        pod.append("{");
-        pod.append("  \"spec\": {");
-        pod.append("    \"containers\": [");
-        pod.append("      {");
-        pod.append("        \"name\": \"main\",");
-        pod.append("        \"image\": \"").append(containerImage).append("\",");
-        pod.append("        \"imagePullPolicy\": \"IfNotPresent\",");
-        pod.append("        \"command\": [");
-        var it = command.iterator();
-        pod.append("\"").append(it.next()).append("\"");
-        while (it.hasNext()) {
-            pod.append(", \"").append(it.next()).append("\"");
-        }
-        pod.append("        ],");
-        pod.append("        \"securityContext\": {");
-        pod.append("          \"privileged\": true,");
-        pod.append("          \"runAsUser\": 18611");
-        pod.append("        },");
-        pod.append("        \"volumeMounts\": [");
-        pod.append("          {");
-        pod.append("            \"name\": \"cache\",");
-        pod.append("            \"mountPath\": \"")
-                .append(cacheManager.getCacheRootDir().toString())
-                .append("\"");
-        pod.append("          },");
-        pod.append("          {");
-        pod.append("            \"name\": \"result\",");
-        pod.append("            \"mountPath\": \"")
-                .append(cacheManager.getResultRootDir().toString())
-                .append("\"");
-        pod.append("          },");
-        pod.append("          {");
-        pod.append("            \"name\": \"work\",");
-        pod.append("            \"mountPath\": \"")
-                .append(cacheManager.getWorkRootDir().toString())
-                .append("\"");
-        pod.append("          }");
-        pod.append("        ],");
-        pod.append("        \"resources\": {");
-        pod.append("          \"requests\": {");
-        pod.append("            \"cpu\": \"").append(cpuRequest).append("\",");
-        pod.append("            \"memory\": \"").append(memRequest).append("\"");
-        pod.append("          },");
-        pod.append("          \"limits\": {");
-        pod.append("            \"cpu\": \"").append(cpuLimit).append("\",");
-        pod.append("            \"memory\": \"").append(memLimit).append("\"");
-        pod.append("          }");
-        pod.append("        }");
-        pod.append("      }");
-        pod.append("    ],");
-        pod.append("    \"volumes\": [");
-        pod.append("      {");
-        pod.append("        \"name\": \"cache\",");
-        pod.append("        \"persistentVolumeClaim\": {");
-        pod.append("          \"claimName\": \"").append(cacheVolumeClaimName).append("\"");
-        pod.append("        }");
-        pod.append("      },");
-        pod.append("      {");
-        pod.append("        \"name\": \"result\",");
-        pod.append("        \"persistentVolumeClaim\": {");
-        pod.append("          \"claimName\": \"").append(resultVolumeClaimName).append("\"");
-        pod.append("        }");
-        pod.append("      },");
-        pod.append("      {");
-        pod.append("        \"name\": \"work\",");
-        pod.append("        \"emptyDir\": {");
-        pod.append("          \"medium\": \"Memory\",");
-        pod.append("          \"sizeLimit\": \"1Gi\"");
-        pod.append("        }");
-        pod.append("      }");
-        pod.append("    ]");
-        pod.append("  }");
-        pod.append("}");
+        return task.getId().replace('_', '-');
+    }
+
+    /// Returns kubectl command that deletes Pod run by command returned from
+    /// [#wrapCommand], waiting until it is gone. When kubectl loses the Pod,
+    /// it doesn't remove it, and the Pod would clash with the next attempt.
+    public List<String> getDeletePodCommand(TaskExecutionContext context) {
+        return List.of(
+                "kubectl",
+                "delete",
+                "pod",
+                getPodName(context.getTask()),
+                "--namespace=" + namespace,
+                "--ignore-not-found",
+                "--wait");
+    }
+
+    public List<String> wrapCommand(
+            TaskExecutionContext context, List<String> command, List<Path> nodeLocalDirs)
+            throws TaskTermination {
+        Task task = context.getTask();
 
         List<String> args = new ArrayList<>();
         args.add("kubectl");
         args.add("run");
-        args.add(podName);
+        args.add(getPodName(task));
         args.add("--namespace=" + namespace);
         args.add("--quiet");
         args.add("--attach");
@@ -169,8 +493,365 @@ public class Kubernetes {
         args.add("--rm");
         args.add("--restart=Never");
         args.add("--image=" + containerImage);
-        args.add("--overrides=" + pod.toString());
+        args.add(
+                "--labels="
+                        + TASK_LABEL
+                        + "="
+                        + getTaskLabel(task.getId())
+                        + ","
+                        + EXECUTION_LABEL
+                        + "="
+                        + executionId);
+        try {
+            Map<String, Object> podSpec = getTaskPodSpec(task, command, nodeLocalDirs);
+            args.add("--overrides=" + Json.write(Map.of("spec", podSpec)));
+        } catch (IOException e) {
+            TaskTermination.error("I/O error while reading task history: " + e.getMessage());
+        }
 
         return args;
     }
+
+    private String getPodsPath() {
+        return "/api/v1/namespaces/" + namespace + "/pods";
+    }
+
+    private synchronized PodWatcher getPodWatcher() {
+        if (podWatcher == null) {
+            String selector =
+                    URLEncoder.encode(
+                            MANAGED_BY_LABEL + "=mbici," + EXECUTION_LABEL + "=" + executionId,
+                            StandardCharsets.UTF_8);
+            podWatcher = new PodWatcher(apiClient, getPodsPath(), selector);
+            podWatcher.start();
+        }
+        return podWatcher;
+    }
+
+    private static Duration parseDuration(String duration) {
+        Duration result = Duration.ZERO;
+        Matcher matcher = Pattern.compile("([0-9]+)([hms])").matcher(duration);
+        while (matcher.find()) {
+            long value = Long.parseLong(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "h":
+                    result = result.plusHours(value);
+                    break;
+                case "m":
+                    result = result.plusMinutes(value);
+                    break;
+                default:
+                    result = result.plusSeconds(value);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isFinished(Object pod) {
+        Object phase = Json.get(pod, "status", "phase");
+        return pod == null || "Succeeded".equals(phase) || "Failed".equals(phase);
+    }
+
+    private static boolean isStarted(Object pod) {
+        return pod == null || !"Pending".equals(Json.get(pod, "status", "phase"));
+    }
+
+    /// Returns value of label that identifies Pods running given task. Task
+    /// IDs may contain characters that are not allowed in label values.
+    private static String getTaskLabel(String taskId) {
+        String label = taskId.replaceAll("[^A-Za-z0-9_.-]", "_");
+        return label.substring(0, Math.min(label.length(), MAX_LABEL_LENGTH));
+    }
+
+    private String getPodJson(
+            String namePrefix, Map<String, Object> spec, Map<String, String> labels) {
+        Map<String, String> allLabels = new LinkedHashMap<>(labels);
+        allLabels.put(MANAGED_BY_LABEL, "mbici");
+        allLabels.put(EXECUTION_LABEL, executionId);
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("generateName", namePrefix);
+        metadata.put("labels", allLabels);
+        Map<String, Object> pod = new LinkedHashMap<>();
+        pod.put("apiVersion", "v1");
+        pod.put("kind", "Pod");
+        pod.put("metadata", metadata);
+        pod.put("spec", spec);
+        return Json.write(pod);
+    }
+
+    /// Returns whether command of given task is short-lived, needs little
+    /// memory and leaves no state behind apart from its work and result
+    /// directories, so that it can be run in a reused worker Pod. Gather
+    /// tasks are not, as they resolve dependencies against whole platform
+    /// repos.
+    private static boolean isPoolable(Task task) {
+        return task.getHandler().equals(RepoTaskHandler.class.getName());
+    }
+
+    private synchronized PodPool getPodPool() {
+        if (podPool == null) {
+            List<String> command = List.of("sleep", "infinity");
+            PodTemplate template = getTemplate(RepoTaskHandler.class.getName());
+            template.command = command;
+            // Workers only run short commands, they don't need resources of
+            // RPM builds, nor a provisioned work volume
+            template.cpuRequest = WORKER_CPU_REQUEST;
+            template.cpuLimit = WORKER_CPU_LIMIT;
+            template.memoryRequest = WORKER_MEMORY_REQUEST;
+            template.memoryLimit = WORKER_MEMORY_LIMIT;
+            template.workVolumeType = WorkVolumeType.MEMORY;
+            template.workVolumeSize = WORKER_WORK_VOLUME_SIZE;
+            String podJson = getPodJson("mbici-worker-", template.toSpec(), Map.of());
+            Duration startTimeout = parseDuration(podRunningTimeout);
+            podPool =
+                    new PodPool(
+                            apiClient,
+                            getPodWatcher(),
+                            getPodsPath(),
+                            podJson,
+                            startTimeout,
+                            warmPoolSize);
+        }
+        return podPool;
+    }
+
+    /// Runs command in a worker Pod from the pool, writing its output to
+    /// given log, and returns its exit code.
+    private int runInPool(
+            TaskExecutionContext context,
+            List<String> command,
+            OutputStream log,
+            int timeoutSeconds)
+            throws TaskTermination, InfrastructureFailure {
+        PodPool pool = getPodPool();
+        String podName = null;
+        boolean reusable = false;
+        try {
+            podName = pool.acquire();
+            String podPath = getPodsPath() + "/" + podName;
+            Duration timeout = Duration.ofSeconds(timeoutSeconds);
+            int exitCode = apiClient.exec(podPath, "main", command, log, timeout);
+            // Work directory is not shared with other Pods, so leave it clean
+            // for subsequent commands
+            List<String> cleanup = List.of("rm", "-rf", context.getWorkDir().toString());
+            reusable =
+                    apiClient.exec(podPath, "main", cleanup, log, Duration.ofMinutes(1)) == 0;
+            return exitCode;
+        } catch (TimeoutException e) {
+            TaskTermination.error("Timeout waiting for command in Pod " + podName);
+            return -1;
+        } catch (IOException e) {
+            throw new InfrastructureFailure("Kubernetes API error: " + e.getMessage(), false);
+        } catch (InterruptedException e) {
+            TaskTermination.error("Interrupted while waiting for Pod");
+            return -1;
+        } finally {
+            if (podName != null) {
+                pool.release(podName, reusable);
+            }
+        }
+    }
+
+    /// Opens stream of output of Pod that is currently running given task,
+    /// which is followed as long as the Pod runs. Returns `null` if there is
+    /// no such Pod.
+    public static InputStream followTaskLog(KubeClient apiClient, String namespace, String taskId)
+            throws IOException, InterruptedException {
+        String podsPath = "/api/v1/namespaces/" + namespace + "/pods";
+        String selector =
+                URLEncoder.encode(
+                        TASK_LABEL + "=" + getTaskLabel(taskId), StandardCharsets.UTF_8);
+        Object pods = apiClient.get(podsPath + "?labelSelector=" + selector);
+        for (Object pod : (List<?>) Json.get(pods, "items")) {
+            if ("Running".equals(Json.get(pod, "status", "phase"))) {
+                String podName = (String) Json.get(pod, "metadata", "name");
+                return apiClient.open(
+                        podsPath + "/" + podName + "/log?container=main&follow=true");
+            }
+        }
+        return null;
+    }
+
+    /// Deletes worker Pods that are kept running in the pool.
+    public synchronized void shutdown() {
+        if (podPool != null) {
+            podPool.shutdown();
+        }
+    }
+
+    /// Returns number of Pods managed by this executor that are waiting to be
+    /// scheduled or started.
+    public int getPendingPodCount() {
+        return getPodWatcher().countPending();
+    }
+
+    private synchronized void recordStartLatency(Duration latency) {
+        if (latency.compareTo(maxStartLatency) > 0) {
+            maxStartLatency = latency;
+        }
+    }
+
+    /// Returns the longest time a Pod took to start since the last call.
+    public synchronized Duration takeStartLatency() {
+        Duration latency = maxStartLatency;
+        maxStartLatency = Duration.ZERO;
+        return latency;
+    }
+
+    /// Returns how many more Pods can be created before a ResourceQuota of
+    /// the namespace is exhausted, or `Integer.MAX_VALUE` if Pod count is not
+    /// limited.
+    public int getQuotaHeadroom() {
+        int headroom = Integer.MAX_VALUE;
+        if (!quotasAvailable) {
+            return headroom;
+        }
+        try {
+            Object list = apiClient.get("/api/v1/namespaces/" + namespace + "/resourcequotas");
+            for (Object quota : (List<?>) Json.get(list, "items")) {
+                Object hard = Json.get(quota, "status", "hard", "pods");
+                Object used = Json.get(quota, "status", "used", "pods");
+                if (hard instanceof String && used instanceof String) {
+                    int remaining =
+                            Integer.parseInt((String) hard) - Integer.parseInt((String) used);
+                    headroom = Math.min(headroom, remaining);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Most likely the service account is not allowed to read quotas
+            System.err.println("ResourceQuotas are not available: " + e.getMessage());
+            quotasAvailable = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return headroom;
+    }
+
+    /// Samples resource usage of given Pod through metrics API, if the cluster
+    /// provides it.
+    private void sampleMetrics(String podName, ResourceUsage usage) {
+        if (!metricsAvailable) {
+            return;
+        }
+        String path = "/apis/metrics.k8s.io/v1beta1/namespaces/" + namespace + "/pods/" + podName;
+        try {
+            Object metrics = apiClient.get(path);
+            for (Object container : (List<?>) Json.get(metrics, "containers")) {
+                if ("main".equals(Json.get(container, "name"))) {
+                    long memory =
+                            Resources.parseBytes((String) Json.get(container, "usage", "memory"));
+                    double cpu = Resources.parseCpu((String) Json.get(container, "usage", "cpu"));
+                    usage.sample(memory, cpu, METRICS_INTERVAL);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Metrics are not available until some time after Pod starts
+            if (e.getMessage() == null || !e.getMessage().contains("404")) {
+                System.err.println("Pod metrics are not available: " + e.getMessage());
+                metricsAvailable = false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Object awaitFinish(String podName, Duration timeout, ResourceUsage usage)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            Duration wait = Duration.ofNanos(Math.min(remaining, METRICS_INTERVAL.toNanos()));
+            Object pod = getPodWatcher().await(podName, Kubernetes::isFinished, wait);
+            if (isFinished(pod) || remaining <= METRICS_INTERVAL.toNanos()) {
+                return pod;
+            }
+            sampleMetrics(podName, usage);
+        }
+    }
+
+    /// Runs command in a new Pod created through Kubernetes API, writes its
+    /// output to given log once it finishes and returns its exit code.
+    public int runPod(
+            TaskExecutionContext context,
+            List<String> command,
+            List<Path> nodeLocalDirs,
+            OutputStream log,
+            int timeoutSeconds)
+            throws TaskTermination, InfrastructureFailure {
+        Task task = context.getTask();
+        if (warmPoolSize > 0 && isPoolable(task)) {
+            return runInPool(context, command, log, timeoutSeconds);
+        }
+        // Kubernetes doesn't allow underscore in Pod names
+        String podPrefix = task.getId().replace('_', '-').toLowerCase() + "-";
+        PodWatcher watcher = getPodWatcher();
+        String podPath = null;
+        String podName = null;
+        try {
+            String podJson =
+                    getPodJson(
+                            podPrefix,
+                            getTaskPodSpec(task, command, nodeLocalDirs),
+                            Map.of(TASK_LABEL, getTaskLabel(task.getId())));
+            Object created = apiClient.post(getPodsPath(), podJson);
+            podName = (String) Json.get(created, "metadata", "name");
+            podPath = getPodsPath() + "/" + podName;
+            watcher.track(podName, created);
+
+            Duration startTimeout = parseDuration(podRunningTimeout);
+            long createTime = System.nanoTime();
+            Object pod = watcher.await(podName, Kubernetes::isStarted, startTimeout);
+            recordStartLatency(Duration.ofNanos(System.nanoTime() - createTime));
+            if (!isStarted(pod)) {
+                throw new InfrastructureFailure("Pod " + podName + " did not start in time", false);
+            }
+            Object nodeName = Json.get(pod, "spec", "nodeName");
+            if (nodeTracker != null && nodeName instanceof String) {
+                nodeTracker.record(getNodeKeys(task, nodeLocalDirs), (String) nodeName);
+            }
+            Duration finishTimeout = Duration.ofSeconds(timeoutSeconds);
+            pod = awaitFinish(podName, finishTimeout, ResourceUsage.of(task.getId()));
+            if (!isFinished(pod)) {
+                TaskTermination.error("Timeout waiting for Pod " + podName + " to finish");
+            }
+            if (pod == null) {
+                throw new InfrastructureFailure(
+                        "Pod " + podName + " was deleted before it finished", false);
+            }
+            try (InputStream is = apiClient.open(podPath + "/log?container=main")) {
+                is.transferTo(log);
+            }
+            Object terminated =
+                    Json.get(pod, "status", "containerStatuses", 0, "state", "terminated");
+            Object exitCode = Json.get(terminated, "exitCode");
+            Object reason = Json.get(terminated, "reason");
+            if ("OOMKilled".equals(reason)) {
+                throw new InfrastructureFailure("Pod " + podName + " ran out of memory", true);
+            }
+            if (!(exitCode instanceof Long)) {
+                // Most likely evicted, Pod status has the details
+                throw new InfrastructureFailure(
+                        "Pod " + podName + " failed: " + Json.get(pod, "status", "reason"), false);
+            }
+            if (isKilled(((Long) exitCode).intValue())) {
+                throw new InfrastructureFailure(
+                        "Pod " + podName + " was killed: " + reason, false);
+            }
+            return ((Long) exitCode).intValue();
+        } catch (IOException e) {
+            throw new InfrastructureFailure("Kubernetes API error: " + e.getMessage(), false);
+        } catch (InterruptedException e) {
+            TaskTermination.error("Interrupted while waiting for Pod");
+            return -1;
+        } finally {
+            if (podPath != null) {
+                watcher.forget(podName);
+                try {
+                    apiClient.delete(podPath);
+                } catch (IOException | InterruptedException e) {
+                    System.err.println("Unable to delete Pod " + podName + ": " + e.getMessage());
+                }
+            }
+        }
+    }
 }
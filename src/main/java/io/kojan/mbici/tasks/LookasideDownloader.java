@@ -0,0 +1,184 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.tasks;
+
+import io.kojan.mbici.cache.ArtifactType;
+import io.kojan.mbici.cache.CacheManager;
+import io.kojan.workflow.TaskExecutionContext;
+import io.kojan.workflow.TaskTermination;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/// Downloads source archives from lookaside cache.
+///
+/// Downloads run concurrently, but no more than a few at a time from the same
+/// host, across all tasks. Connections are reused between downloads. Content
+/// is verified against its SHA-512 while it is being written to disk, and
+/// moved into lookaside cache only if it matches.
+class LookasideDownloader {
+    private static final int MAX_DOWNLOADS_PER_HOST = 4;
+    private static final Duration RESPONSE_TIMEOUT = Duration.ofSeconds(300);
+
+    private static final HttpClient client =
+            HttpClient.newBuilder()
+                    .version(Version.HTTP_1_1)
+                    .followRedirects(Redirect.NORMAL)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+    private static final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    private final TaskExecutionContext context;
+    private final CacheManager cacheManager;
+    private final List<Download> downloads = new ArrayList<>();
+
+    private record Download(String fileName, URI uri, String sha512) {}
+
+    public LookasideDownloader(TaskExecutionContext context, CacheManager cacheManager) {
+        this.context = context;
+        this.cacheManager = cacheManager;
+    }
+
+    public void addDownload(String fileName, String url, String sha512) {
+        downloads.add(new Download(fileName, URI.create(url), sha512));
+    }
+
+    private static void download(URI uri, String sha512, Path targetPath)
+            throws IOException, InterruptedException {
+        Semaphore permits =
+                hostPermits.computeIfAbsent(
+                        String.valueOf(uri.getHost()),
+                        host -> new Semaphore(MAX_DOWNLOADS_PER_HOST));
+        permits.acquire();
+        try {
+            HttpRequest req =
+                    HttpRequest.newBuilder(uri).timeout(RESPONSE_TIMEOUT).GET().build();
+            HttpResponse<InputStream> resp = client.send(req, BodyHandlers.ofInputStream());
+            MessageDigest md = MessageDigest.getInstance("SHA-512");
+            try (InputStream is = resp.body();
+                    OutputStream os = Files.newOutputStream(targetPath)) {
+                if (resp.statusCode() != 200) {
+                    throw new IOException("HTTP status " + resp.statusCode());
+                }
+                byte[] buf = new byte[65536];
+                int n;
+                while ((n = is.read(buf)) > 0) {
+                    md.update(buf, 0, n);
+                    os.write(buf, 0, n);
+                }
+            }
+            String actual = HexFormat.of().formatHex(md.digest());
+            if (!actual.equals(sha512)) {
+                throw new IOException("SHA-512 mismatch, got " + actual);
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /// Downloads file into lookaside cache, unless it is already there.
+    private void fetch(Download download) throws TaskTermination, IOException {
+        // Concurrent fetches of the same file wait for the first one to finish
+        cacheManager.singleFlight(
+                "lookaside-" + download.sha512(),
+                () -> {
+                    Path cachePath = cacheManager.getLookaside(download.sha512());
+                    if (Files.exists(cachePath)) {
+                        return;
+                    }
+                    Path pendingDir = cacheManager.createPending("lookaside-");
+                    try {
+                        Path pendingPath = pendingDir.resolve(download.fileName());
+                        download(download.uri(), download.sha512(), pendingPath);
+                        Files.move(pendingPath, cachePath, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while downloading");
+                    } finally {
+                        cacheManager.discardPending(pendingDir);
+                    }
+                });
+    }
+
+    /// Runs all added downloads and waits for them to complete.
+    public void run() throws TaskTermination {
+        if (downloads.isEmpty()) {
+            return;
+        }
+        List<String> errors = new ArrayList<>();
+        Path logPath = context.addArtifact(ArtifactType.LOG, "lookaside.log");
+        try (BufferedWriter bw = Files.newBufferedWriter(logPath);
+                ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Download download : downloads) {
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    fetch(download);
+                                    return null;
+                                }));
+            }
+            for (int i = 0; i < downloads.size(); i++) {
+                Download download = downloads.get(i);
+                String error = null;
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    error = e.getCause().getMessage();
+                }
+                bw.write("Download of " + download.uri() + ": " + (error == null ? "OK" : error));
+                bw.write("\n");
+                if (error != null) {
+                    errors.add(download.fileName() + ": " + error);
+                }
+            }
+        } catch (IOException e) {
+            TaskTermination.error("I/O error when writing lookaside log: " + e.getMessage());
+        } catch (InterruptedException e) {
+            TaskTermination.error("Interrupted while downloading lookaside sources");
+        }
+        if (!errors.isEmpty()) {
+            TaskTermination.fail("Lookaside download failed: " + String.join(", ", errors));
+        }
+    }
+}
@@ -16,21 +16,82 @@
 package io.kojan.mbici.tasks;
 
 import io.kojan.mbici.cache.ArtifactType;
+import io.kojan.mbici.cache.CacheManager;
+import io.kojan.mbici.cache.LogFiles;
 import io.kojan.workflow.TaskExecutionContext;
 import io.kojan.workflow.TaskTermination;
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /// @author Mikolaj Izdebski
 class Mock {
     private static final int MOCK_TIMEOUT = 1800;
+    private static final long DEFAULT_KUBERNETES_TMPFS_SIZE = 4L << 30;
+    private static final long MIN_TMPFS_SIZE = 2L << 30;
+    private static final long MAX_TMPFS_SIZE = 16L << 30;
+    private static final long MIB = 1L << 20;
+    private static final String CHROOT_NAME = "mock-chroot";
+
+    /// Mounts overlay of populated buildroot where mock expects to find the
+    /// buildroot and runs mock, unmounting the overlay afterwards. Build user
+    /// can't mount file systems, so mounting goes through sudo. Upper layer
+    /// is kept in the chroot dir, which is then scrubbed by mock, as it is
+    /// owned by root.
+    private static final String OVERLAY_PRELUDE =
+            "conf=$1 lower=$2 upper=$3 work=$4 root=$5; shift 5;"
+                    + " sudo -n mkdir -p \"$upper\" \"$work\" \"$root\" || exit 1;"
+                    + " sudo -n mount -t overlay overlay"
+                    + " -o \"lowerdir=$lower,upperdir=$upper,workdir=$work\" \"$root\" || exit 1;"
+                    + " \"$@\"; rc=$?;"
+                    + " sudo -n umount -l \"$root\";"
+                    + " mock -r \"$conf\" --scrub=chroot;"
+                    + " exit $rc";
+
+    /// Gives the build a private copy of shared dnf cache where mock's
+    /// yum_cache plugin expects it and runs mock, then scrubs the copy. The
+    /// copy is made on the cache file system, so that files are hard-linked
+    /// rather than copied, which is safe as dnf replaces cache files rather
+    /// than rewriting them.
+    private static final String DNF_CACHE_PRELUDE =
+            "src=$1 top=$2 conf=$3; shift 3;"
+                    + " dst=\"$top/"
+                    + CHROOT_NAME
+                    + "/dnf_cache\";"
+                    + " mkdir -p \"$top/"
+                    + CHROOT_NAME
+                    + "\" || exit 1;"
+                    + " cp -al \"$src\" \"$dst\" || exit 1;"
+                    + " \"$@\"; rc=$?;"
+                    + " mock -r \"$conf\" --scrub=dnf-cache;"
+                    + " rm -rf \"$top\";"
+                    + " exit $rc";
+
+    private record CommonConfigKey(
+            String arch,
+            String chrootSetupCmd,
+            boolean installWeakDeps,
+            List<Path> bindMounts,
+            Map<String, String> macros,
+            boolean nosync) {}
+
+    /// Common configs already stored, shared by all tasks
+    private static final Map<CommonConfigKey, Path> commonConfigs = new ConcurrentHashMap<>();
 
     private final Map<String, String> macros = new LinkedHashMap<>();
     String arch = Arch.getJvmArch();
@@ -39,93 +100,432 @@ class Mock {
     boolean installWeakDeps = false;
     Set<Path> bindMounts = new LinkedHashSet<>();
     final Map<String, Path> repos = new LinkedHashMap<>();
+    private final CacheManager cacheManager;
+    private final MockOptions options;
 
-    public void run(TaskExecutionContext context, String... mockArgs) throws TaskTermination {
-        Path mockConfPath = context.addArtifact(ArtifactType.CONFIG, "mock.cfg");
-        try (BufferedWriter bw = Files.newBufferedWriter(mockConfPath)) {
-            bw.write("config_opts['basedir'] = '" + context.getWorkDir() + "'\n");
-            bw.write("config_opts['cache_topdir'] = '" + context.getWorkDir() + "'\n");
-            bw.write("");
-            bw.write("config_opts['rpmbuild_networking'] = False\n");
-            bw.write("config_opts['use_host_resolv'] = False\n");
-            bw.write("config_opts['isolation'] = 'chroot'\n");
-            bw.write("config_opts['use_bootstrap'] = False\n");
-            bw.write("config_opts['plugin_conf']['yum_cache_enable'] = False\n");
-            bw.write("config_opts['plugin_conf']['root_cache_enable'] = False\n");
-            bw.write("config_opts['plugin_conf']['package_state_enable'] = False\n");
-            bw.write("config_opts['plugin_conf']['tmpfs_enable'] = False\n");
-            bw.write("config_opts['plugin_conf']['tmpfs_opts']['required_ram_mb'] = 2048\n");
-            bw.write("config_opts['plugin_conf']['tmpfs_opts']['max_fs_size'] = '4g'\n");
-            // bw.write( "config_opts['nosync'] = True\n" );
-            // bw.write( "config_opts['nosync_force'] = True\n" );
-            bw.write("config_opts['root'] = 'mock-chroot'\n");
-            bw.write("config_opts['target_arch'] = '" + arch + "'\n");
-            bw.write("config_opts['chroot_setup_cmd'] = '" + chrootSetupCmd + "'\n");
-            bw.write("\n");
-            for (Path bindMount : bindMounts) {
-                bw.write(
-                        "config_opts['plugin_conf']['bind_mount_opts']['dirs'].append(('"
-                                + bindMount
-                                + "', '"
-                                + bindMount
-                                + "'))\n");
+    Mock() {
+        this(null, new MockOptions());
+    }
+
+    Mock(CacheManager cacheManager, MockOptions options) {
+        this.cacheManager = cacheManager;
+        this.options = options;
+    }
+
+    /// Returns key that identifies contents of buildroot installed from given
+    /// repos, which changes whenever contents of any of the repos does.
+    private String getRootCacheKey(Map<String, Path> repos) throws IOException {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            String setup = arch + "\n" + chrootSetupCmd + "\n" + installWeakDeps + "\n";
+            md.update(setup.getBytes(StandardCharsets.UTF_8));
+            for (var entry : repos.entrySet()) {
+                md.update((entry.getKey() + "\n").getBytes(StandardCharsets.UTF_8));
+                Path repomdPath = entry.getValue().resolve("repodata").resolve("repomd.xml");
+                if (Files.isRegularFile(repomdPath)) {
+                    md.update(Files.readAllBytes(repomdPath));
+                } else {
+                    md.update(entry.getValue().toString().getBytes(StandardCharsets.UTF_8));
+                }
             }
-            bw.write("config_opts['macros']['%_source_payload'] = 'w.ufdio'\n");
-            bw.write("config_opts['macros']['%_binary_payload'] = 'w.ufdio'\n");
-            for (var macro : macros.entrySet()) {
-                bw.write(
-                        "config_opts['macros']['%"
-                                + macro.getKey()
-                                + "'] = '"
-                                + macro.getValue()
-                                + "'\n");
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /// Returns directory with cached buildroot for given repos, or `null` if
+    /// buildroots are not cached.
+    private Path getRootCacheDir(Map<String, Path> repos) throws IOException {
+        if (options.getChroot() != MockChroot.ROOT_CACHE || cacheManager == null) {
+            return null;
+        }
+        Path rootCacheDir = cacheManager.getMockRootCache(getRootCacheKey(repos));
+        // Let garbage collector know that the cache is still in use
+        Files.setLastModifiedTime(rootCacheDir, FileTime.from(Instant.now()));
+        return rootCacheDir;
+    }
+
+    /// Returns path to populated buildroot for given repos that overlay of
+    /// the build is mounted on, installing the buildroot first if there is
+    /// none yet.
+    private Path getOverlayBase(TaskExecutionContext context, Map<String, Path> repos)
+            throws TaskTermination {
+        try {
+            String key = getRootCacheKey(repos);
+            Path baseDir = cacheManager.getMockOverlayBase(key);
+            cacheManager.singleFlight(
+                    "mock-overlay-" + key, () -> installOverlayBase(context, repos, baseDir));
+            Files.setLastModifiedTime(baseDir, FileTime.from(Instant.now()));
+            return baseDir.resolve(CHROOT_NAME).resolve("root");
+        } catch (IOException e) {
+            TaskTermination.error("I/O error when preparing mock buildroot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void installOverlayBase(
+            TaskExecutionContext context, Map<String, Path> repos, Path baseDir)
+            throws TaskTermination, IOException {
+        if (Files.exists(baseDir)) {
+            return;
+        }
+        Path pendingDir = cacheManager.createPending("mock-overlay-");
+        Command init = new Command("mock");
+        init.setName("mock-init");
+        Path confPath = context.addArtifact(ArtifactType.CONFIG, "mock-init.cfg");
+        writeConfig(context, init, confPath, pendingDir, repos, 0, null, null);
+        boolean installed = false;
+        try {
+            init.addArg("-r", confPath.toString());
+            init.addArg("--init");
+            init.runRemote(context, timeout);
+            // Buildroot is owned by root, so garbage collector needs mock to
+            // remove it, using config that refers to its final location
+            MockConfig scrubConfig = new MockConfig();
+            scrubConfig.inline(getCommonConfig());
+            scrubConfig.assign(MockConfig.key("basedir"), baseDir);
+            scrubConfig.assign(MockConfig.key("cache_topdir"), baseDir);
+            scrubConfig.write(pendingDir.resolve(CacheManager.MOCK_SCRUB_CONFIG));
+            Files.move(pendingDir, baseDir, StandardCopyOption.ATOMIC_MOVE);
+            installed = true;
+        } finally {
+            if (!installed) {
+                Command scrub = new Command("mock", "-r", confPath.toString(), "--scrub=all");
+                scrub.setName("mock-init-scrub");
+                scrub.runRemote(context, timeout);
+                cacheManager.discardPending(pendingDir);
             }
-            bw.write("\n");
-            bw.write("config_opts['yum.conf'] = \"\"\"\n");
-            bw.write("[main]\n");
-            bw.write("keepcache=0\n");
-            bw.write("debuglevel=1\n");
-            bw.write("reposdir=/dev/null\n");
-            bw.write("gpgcheck=0\n");
-            bw.write("assumeyes=1\n");
-            bw.write("install_weak_deps=" + (installWeakDeps ? 1 : 0) + "\n");
-            bw.write("metadata_expire=-1\n");
-            bw.write("best=1\n");
-            bw.write("protected_packages=rpm-build\n");
-
-            Map<String, Path> repos = new LinkedHashMap<>(this.repos);
-            for (Path repoPath : context.getDependencyArtifacts(ArtifactType.REPO)) {
-                // FIXME find a better way to determine repo name
-                String repoName = repoPath.getParent().getParent().getFileName().toString();
-                repos.put(repoName, repoPath);
+        }
+    }
+
+    private String getYumConfMain() {
+        StringBuilder yumConf = new StringBuilder();
+        yumConf.append("[main]\n");
+        // Shared cache keeps packages too, not only metadata
+        yumConf.append("keepcache=" + (options.isDnfCache() ? 1 : 0) + "\n");
+        yumConf.append("debuglevel=1\n");
+        yumConf.append("reposdir=/dev/null\n");
+        yumConf.append("gpgcheck=0\n");
+        yumConf.append("assumeyes=1\n");
+        yumConf.append("install_weak_deps=" + (installWeakDeps ? 1 : 0) + "\n");
+        yumConf.append("metadata_expire=-1\n");
+        yumConf.append("best=1\n");
+        yumConf.append("protected_packages=rpm-build\n");
+        return yumConf.toString();
+    }
+
+    /// Returns yum.conf sections of given repos. Dependency repos are read
+    /// from node-local cache by given command, if it is enabled.
+    private String getYumConfRepos(Command command, Map<String, Path> repos) {
+        StringBuilder yumRepos = new StringBuilder();
+        int priority = 0;
+        for (var entry : repos.entrySet()) {
+            String repoName = entry.getKey();
+            Path repoPath = entry.getValue();
+            if (!this.repos.containsKey(repoName)) {
+                repoPath = command.addNodeLocalDir(repoPath);
             }
-            int priority = 0;
-            for (var entry : repos.entrySet()) {
-                String repoName = entry.getKey();
-                Path repoPath = entry.getValue();
-                bw.write("\n");
-                bw.write("[" + repoName + "]\n");
-                bw.write("name=" + repoName + "\n");
-                bw.write("baseurl=" + repoPath + "\n");
-                bw.write("priority=" + ++priority + "\n");
-                bw.write("module_hotfixes=1\n");
+            yumRepos.append("\n");
+            yumRepos.append("[" + repoName + "]\n");
+            yumRepos.append("name=" + repoName + "\n");
+            yumRepos.append("baseurl=" + repoPath + "\n");
+            yumRepos.append("priority=" + ++priority + "\n");
+            yumRepos.append("module_hotfixes=1\n");
+        }
+        return yumRepos.toString();
+    }
+
+    /// Returns directory with dnf cache populated with metadata of given
+    /// repos, populating it first if there is none yet, or `null` if dnf
+    /// cache is not shared.
+    private Path getDnfCache(TaskExecutionContext context, Map<String, Path> repos)
+            throws TaskTermination {
+        if (!options.isDnfCache() || cacheManager == null) {
+            return null;
+        }
+        try {
+            String key = getRootCacheKey(repos);
+            Path cacheDir = cacheManager.getMockDnfCache(key);
+            cacheManager.singleFlight(
+                    "mock-dnf-" + key, () -> populateDnfCache(context, repos, cacheDir));
+            Files.setLastModifiedTime(cacheDir, FileTime.from(Instant.now()));
+            return cacheDir;
+        } catch (IOException e) {
+            TaskTermination.error("I/O error when preparing dnf cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void populateDnfCache(
+            TaskExecutionContext context, Map<String, Path> repos, Path cacheDir)
+            throws TaskTermination, IOException {
+        if (Files.exists(cacheDir)) {
+            return;
+        }
+        Path pendingDir = cacheManager.createPending("mock-dnf-");
+        boolean populated = false;
+        try {
+            Command makecache = new Command("dnf");
+            makecache.setName("dnf-makecache");
+            Path confPath = context.addArtifact(ArtifactType.CONFIG, "dnf-makecache.conf");
+            Files.writeString(
+                    confPath,
+                    getYumConfMain()
+                            + "cachedir="
+                            + pendingDir
+                            + "\n"
+                            + getYumConfRepos(makecache, repos));
+            makecache.addArg("-c", confPath.toString(), "makecache");
+            makecache.runRemote(context, timeout);
+            Files.move(pendingDir, cacheDir, StandardCopyOption.ATOMIC_MOVE);
+            populated = true;
+        } finally {
+            if (!populated) {
+                cacheManager.discardPending(pendingDir);
             }
+        }
+    }
+
+    /// Returns part of mock config that doesn't depend on the task being run
+    /// or its dependencies, and is therefore shared by many tasks.
+    private MockConfig getCommonConfig() {
+        MockConfig config = new MockConfig();
+        config.assign(MockConfig.key("rpmbuild_networking"), false);
+        config.assign(MockConfig.key("use_host_resolv"), false);
+        config.assign(MockConfig.key("isolation"), "chroot");
+        config.assign(MockConfig.key("use_bootstrap"), false);
+        config.assign(MockConfig.key("plugin_conf", "package_state_enable"), false);
+        if (options.isNosync()) {
+            config.assign(MockConfig.key("nosync"), true);
+            config.assign(MockConfig.key("nosync_force"), true);
+        }
+        config.assign(MockConfig.key("root"), CHROOT_NAME);
+        config.assign(MockConfig.key("target_arch"), arch);
+        config.assign(MockConfig.key("chroot_setup_cmd"), chrootSetupCmd);
+        for (Path bindMount : bindMounts) {
+            config.append(
+                    MockConfig.key("plugin_conf", "bind_mount_opts", "dirs"),
+                    List.of(bindMount, bindMount));
+        }
+        config.assign(MockConfig.key("macros", "%_source_payload"), "w.ufdio");
+        config.assign(MockConfig.key("macros", "%_binary_payload"), "w.ufdio");
+        for (var macro : macros.entrySet()) {
+            config.assign(MockConfig.key("macros", "%" + macro.getKey()), macro.getValue());
+        }
+        config.assign(MockConfig.key("yum.conf"), getYumConfMain());
+        return config;
+    }
 
-            bw.write("\"\"\"\n");
+    /// Returns path to stored common part of mock config, storing it first
+    /// if it is not stored yet. It is rendered only once for all tasks that
+    /// share it.
+    private Path getCommonConfigPath() throws IOException {
+        CommonConfigKey key =
+                new CommonConfigKey(
+                        arch,
+                        chrootSetupCmd,
+                        installWeakDeps,
+                        List.copyOf(bindMounts),
+                        Map.copyOf(macros),
+                        options.isNosync());
+        Path path = commonConfigs.get(key);
+        if (path == null || !Files.exists(path)) {
+            path = getCommonConfig().store(cacheManager.getMockConfigDir());
+            commonConfigs.put(key, path);
+        }
+        // Fragments that are not linked from any result are collected once
+        // they are not used for a while
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+        return path;
+    }
+
+    /// Adds common part of mock config to task results, so that they are
+    /// self-contained. Returns path to the artifact.
+    private Path addCommonConfig(TaskExecutionContext context, Path confPath)
+            throws TaskTermination, IOException {
+        String confName = confPath.getFileName().toString();
+        String name = confName.substring(0, confName.lastIndexOf('.')) + "-common.cfg";
+        Path artifactPath = context.addArtifact(ArtifactType.CONFIG, name);
+        Path storedPath = getCommonConfigPath();
+        try {
+            // Link keeps stored fragment from being garbage-collected
+            Files.createLink(artifactPath, storedPath);
+        } catch (IOException e) {
+            // Results may be on a different file system than cache
+            Files.copy(storedPath, artifactPath);
+        }
+        return artifactPath;
+    }
+
+    private void writeConfig(
+            TaskExecutionContext context,
+            Command mock,
+            Path confPath,
+            Path baseDir,
+            Map<String, Path> repos,
+            long tmpfsSize,
+            Path rootCacheDir,
+            Path cacheTopDir)
+            throws TaskTermination {
+        MockConfig config = new MockConfig();
+        try {
+            // Common part is stored only once and included by configs of all
+            // tasks that share it
+            if (cacheManager != null) {
+                config.include(addCommonConfig(context, confPath));
+            } else {
+                config.inline(getCommonConfig());
+            }
+            config.assign(MockConfig.key("basedir"), baseDir);
+            config.assign(
+                    MockConfig.key("cache_topdir"), cacheTopDir != null ? cacheTopDir : baseDir);
+            if (rootCacheDir != null) {
+                // Cache key covers everything that affects the buildroot, so
+                // there is no need to ever expire it
+                config.assign(MockConfig.key("plugin_conf", "root_cache_enable"), true);
+                config.assign(
+                        MockConfig.key("plugin_conf", "root_cache_opts", "dir"),
+                        rootCacheDir + "/");
+                config.assign(
+                        MockConfig.key("plugin_conf", "root_cache_opts", "age_check"), false);
+            } else {
+                config.assign(MockConfig.key("plugin_conf", "root_cache_enable"), false);
+            }
+            if (cacheTopDir != null) {
+                // Metadata never expires, as repos are identified by content
+                config.assign(MockConfig.key("plugin_conf", "yum_cache_enable"), true);
+            } else {
+                config.assign(MockConfig.key("plugin_conf", "yum_cache_enable"), false);
+            }
+            config.assign(MockConfig.key("plugin_conf", "tmpfs_enable"), tmpfsSize > 0);
+            config.assign(
+                    MockConfig.key("plugin_conf", "tmpfs_opts", "required_ram_mb"),
+                    tmpfsSize / MIB / 2);
+            config.assign(
+                    MockConfig.key("plugin_conf", "tmpfs_opts", "max_fs_size"),
+                    tmpfsSize / MIB + "m");
+
+            config.extend(MockConfig.key("yum.conf"), getYumConfRepos(mock, repos));
+
+            config.write(confPath);
         } catch (IOException e) {
             TaskTermination.error("I/O error when writing mock config: " + e.getMessage());
         }
+    }
+
+    /// Returns size of tmpfs that buildroot is kept in, or 0 if it is kept
+    /// on disk.
+    private long getTmpfsSize(TaskExecutionContext context) throws TaskTermination {
+        if (options.getTmpfsSize() != null) {
+            return options.getTmpfsSize();
+        }
+        if (Command.kubernetes != null) {
+            // Chroot is kept in memory only if work volume of the Pod is, and
+            // is sized like the volume, unless its size is left at default,
+            // which is too small for a buildroot
+            try {
+                return Command.kubernetes.getMemoryWorkVolumeSize(
+                        context.getTask(), DEFAULT_KUBERNETES_TMPFS_SIZE);
+            } catch (IOException e) {
+                TaskTermination.error("I/O error while reading task history: " + e.getMessage());
+            }
+        }
+        // Memory is divided between builds only once, builds that are running
+        // already reduce what is available
+        long size =
+                Math.min(
+                        options.getAvailableMemory() / Math.max(1, options.getConcurrency()),
+                        MAX_TMPFS_SIZE);
+        // Building on disk is slower, but running out of memory is worse
+        return size >= MIN_TMPFS_SIZE ? size : 0;
+    }
+
+    public void run(TaskExecutionContext context, String... mockArgs) throws TaskTermination {
+        long tmpfsSize = getTmpfsSize(context);
+        Map<String, Path> repos = new LinkedHashMap<>(this.repos);
+        for (Path repoPath : context.getDependencyArtifacts(ArtifactType.REPO)) {
+            // FIXME find a better way to determine repo name
+            String repoName = repoPath.getParent().getParent().getFileName().toString();
+            repos.put(repoName, repoPath);
+        }
+        Path mockConfPath = context.addArtifact(ArtifactType.CONFIG, "mock.cfg");
+        List<String> mockCmd = new ArrayList<>();
+        Path cacheTopDir = null;
+        Path sharedDnfCacheDir = getDnfCache(context, repos);
+        if (sharedDnfCacheDir != null) {
+            try {
+                cacheTopDir = cacheManager.createPending("mock-cache-");
+            } catch (IOException e) {
+                TaskTermination.error("I/O error when preparing dnf cache: " + e.getMessage());
+            }
+            mockCmd.addAll(
+                    List.of(
+                            "sh",
+                            "-c",
+                            DNF_CACHE_PRELUDE,
+                            "sh",
+                            sharedDnfCacheDir.toString(),
+                            cacheTopDir.toString(),
+                            mockConfPath.toString()));
+        }
+        Path rootCacheDir = null;
+        if (options.getChroot() == MockChroot.OVERLAY && cacheManager != null) {
+            Path lowerDir = getOverlayBase(context, repos);
+            Path chrootDir = context.getWorkDir().resolve(CHROOT_NAME);
+            mockCmd.addAll(
+                    List.of(
+                            "sh",
+                            "-c",
+                            OVERLAY_PRELUDE,
+                            "sh",
+                            mockConfPath.toString(),
+                            lowerDir.toString(),
+                            chrootDir.resolve("overlay-upper").toString(),
+                            chrootDir.resolve("overlay-work").toString(),
+                            chrootDir.resolve("root").toString(),
+                            "mock",
+                            "--no-clean",
+                            "--no-cleanup-after"));
+            // Overlay is the buildroot, so it can't be replaced by tmpfs
+            tmpfsSize = 0;
+        } else {
+            mockCmd.add("mock");
+            try {
+                rootCacheDir = getRootCacheDir(repos);
+            } catch (IOException e) {
+                TaskTermination.error("I/O error when preparing root cache: " + e.getMessage());
+            }
+        }
+        Command mock = new Command(mockCmd.get(0));
+        mock.addArg(mockCmd.subList(1, mockCmd.size()));
+        mock.setName("mock");
+        writeConfig(
+                context,
+                mock,
+                mockConfPath,
+                context.getWorkDir(),
+                repos,
+                tmpfsSize,
+                rootCacheDir,
+                cacheTopDir);
 
-        Command mock = new Command("mock");
-        mock.addArg("--enable-plugin", "tmpfs");
         mock.addArg("-r", mockConfPath.toString());
         mock.addArg("--resultdir", context.getResultDir().toString());
         mock.addArg(mockArgs);
         mock.runRemote(context, timeout);
 
         for (String logName : Arrays.asList("build.log", "root.log", "hw_info.log", "state.log")) {
-            if (Files.isRegularFile(context.getResultDir().resolve(logName))) {
-                context.addArtifact(ArtifactType.LOG, logName);
+            Path logPath = context.getResultDir().resolve(logName);
+            if (Files.isRegularFile(logPath)) {
+                try {
+                    // Mock writes its logs itself, so they can only be capped
+                    // and compressed after it finishes
+                    context.addArtifact(
+                            ArtifactType.LOG, LogFiles.seal(logPath, Command.logPolicy));
+                } catch (IOException e) {
+                    TaskTermination.error("I/O error when sealing " + logName + ": " + e);
+                }
             }
         }
     }
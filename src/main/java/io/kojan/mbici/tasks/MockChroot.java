@@ -0,0 +1,29 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.tasks;
+
+/// Determines how mock provides buildroots for builds.
+public enum MockChroot {
+    /// Every build installs its buildroot from scratch.
+    FRESH,
+    /// Buildroots are installed once per set of repos and unpacked from a
+    /// tarball by mock's root_cache plugin.
+    ROOT_CACHE,
+    /// Buildroots are installed once per set of repos and every build gets
+    /// writable overlayfs layer on top of it. Build user needs to be able to
+    /// run mount, umount and mkdir through sudo without password.
+    OVERLAY
+}
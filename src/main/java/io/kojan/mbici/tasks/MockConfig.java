@@ -0,0 +1,149 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.tasks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/// Generates mock configuration, which is a Python script that sets entries
+/// of `config_opts` dictionary. All values are written as Python literals, so
+/// they can contain any characters.
+class MockConfig {
+    private final StringBuilder sb = new StringBuilder();
+
+    /// Returns expression that refers to `config_opts` entry at given path.
+    static String key(String... keys) {
+        StringBuilder key = new StringBuilder("config_opts");
+        for (String k : keys) {
+            key.append('[').append(literal(k)).append(']');
+        }
+        return key.toString();
+    }
+
+    /// Returns Python literal representing given value.
+    static String literal(Object value) {
+        if (value == null) {
+            return "None";
+        }
+        if (value instanceof Boolean b) {
+            return b ? "True" : "False";
+        }
+        if (value instanceof Number) {
+            return value.toString();
+        }
+        if (value instanceof List<?> list) {
+            StringBuilder sb = new StringBuilder("[");
+            for (Object item : list) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(literal(item));
+            }
+            return sb.append(']').toString();
+        }
+        String string = value.toString();
+        StringBuilder sb = new StringBuilder("'");
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\'':
+                    sb.append("\\'");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == 0x7f) {
+                        sb.append("\\x%02x".formatted((int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('\'').toString();
+    }
+
+    MockConfig assign(String key, Object value) {
+        sb.append(key).append(" = ").append(literal(value)).append('\n');
+        return this;
+    }
+
+    /// Appends given value to string or list entry.
+    MockConfig extend(String key, Object value) {
+        sb.append(key).append(" += ").append(literal(value)).append('\n');
+        return this;
+    }
+
+    /// Appends given value as a single element of list entry.
+    MockConfig append(String key, Object value) {
+        sb.append(key).append(".append(").append(literal(value)).append(")\n");
+        return this;
+    }
+
+    MockConfig include(Path path) {
+        sb.append("include(").append(literal(path)).append(")\n");
+        return this;
+    }
+
+    /// Appends contents of other config to this one.
+    MockConfig inline(MockConfig config) {
+        sb.append(config.sb);
+        return this;
+    }
+
+    /// Stores config in given directory, under name derived from its contents,
+    /// so that identical configs are stored only once. Returns path to the
+    /// stored config.
+    Path store(Path dir) throws IOException {
+        byte[] content = sb.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            Path path = dir.resolve(HexFormat.of().formatHex(md.digest(content)) + ".cfg");
+            if (Files.exists(path)) {
+                return path;
+            }
+            Files.createDirectories(dir);
+            Path tempPath = Files.createTempFile(dir, "fragment-", ".tmp");
+            Files.write(tempPath, content);
+            Files.setPosixFilePermissions(tempPath, PosixFilePermissions.fromString("rw-r--r--"));
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE);
+            return path;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void write(Path path) throws IOException {
+        Files.writeString(path, sb);
+    }
+}
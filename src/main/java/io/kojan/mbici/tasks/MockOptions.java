@@ -0,0 +1,84 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.tasks;
+
+/// Options of mock builds that apply to all tasks of a workflow.
+public class MockOptions {
+    private MockChroot chroot = MockChroot.FRESH;
+    private Long tmpfsSize;
+    private int concurrency = 1;
+    private long availableMemory = -1;
+    private boolean nosync;
+    private boolean dnfCache;
+
+    /// How buildroots are provided, possibly shared by tasks that install
+    /// them from identical repositories.
+    public MockChroot getChroot() {
+        return chroot;
+    }
+
+    public void setChroot(MockChroot chroot) {
+        this.chroot = chroot;
+    }
+
+    /// Size of tmpfs that buildroots are kept in, 0 to keep them on disk, or
+    /// `null` to size it according to available memory.
+    public Long getTmpfsSize() {
+        return tmpfsSize;
+    }
+
+    public void setTmpfsSize(Long tmpfsSize) {
+        this.tmpfsSize = tmpfsSize;
+    }
+
+    /// Max number of mock builds that may be running at the same time, which
+    /// share available memory.
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    /// Memory that was available when it was first asked for, before any
+    /// build started keeping its buildroot in it.
+    public synchronized long getAvailableMemory() {
+        if (availableMemory < 0) {
+            availableMemory = Host.getAvailableMemory();
+        }
+        return availableMemory;
+    }
+
+    /// Whether fsync calls in buildroots are turned into no-ops.
+    public boolean isNosync() {
+        return nosync;
+    }
+
+    public void setNosync(boolean nosync) {
+        this.nosync = nosync;
+    }
+
+    /// Whether repository metadata is loaded by dnf once and then shared by
+    /// all builds that use the same repositories.
+    public boolean isDnfCache() {
+        return dnfCache;
+    }
+
+    public void setDnfCache(boolean dnfCache) {
+        this.dnfCache = dnfCache;
+    }
+}
@@ -0,0 +1,80 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.tasks;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/// Remembers which Kubernetes node last ran given task or copied given
+/// directory to its node-local cache, so that Pods can be scheduled on nodes
+/// that already have the data they need.
+class NodeTracker {
+    private final Path statePath;
+    private final Properties nodes = new Properties();
+
+    public NodeTracker(Path statePath) {
+        this.statePath = statePath;
+        if (Files.isRegularFile(statePath)) {
+            try (Reader reader = Files.newBufferedReader(statePath)) {
+                nodes.load(reader);
+            } catch (IOException e) {
+                // State is only a scheduling hint, so start afresh
+                System.err.println("Unable to read node state: " + e.getMessage());
+            }
+        }
+    }
+
+    /// Records that given node holds data identified by given keys.
+    public synchronized void record(Collection<String> keys, String node) {
+        for (String key : keys) {
+            nodes.setProperty(key, node);
+        }
+        Path tempPath = statePath.resolveSibling(statePath.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempPath)) {
+                nodes.store(writer, null);
+            }
+            Files.move(
+                    tempPath,
+                    statePath,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Unable to write node state: " + e.getMessage());
+        }
+    }
+
+    /// Returns nodes holding data identified by given keys, together with
+    /// the number of keys each of them holds.
+    public synchronized Map<String, Integer> lookup(Collection<String> keys) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String key : keys) {
+            String node = nodes.getProperty(key);
+            if (node != null) {
+                counts.merge(node, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+}
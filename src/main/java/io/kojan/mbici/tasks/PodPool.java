@@ -0,0 +1,195 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.tasks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/// Pool of long-lived worker Pods that short commands are executed in, so that
+/// they don't need to wait for a new Pod to be scheduled and started. Pods are
+/// created on demand, up to the maximal pool size, and deleted after staying
+/// idle for some time.
+class PodPool {
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(5);
+
+    private static class Worker {
+        final String name;
+        long idleSince;
+
+        Worker(String name) {
+            this.name = name;
+        }
+    }
+
+    private final KubeClient client;
+    private final PodWatcher watcher;
+    private final String podsPath;
+    private final String podJson;
+    private final Duration startTimeout;
+    private final int maxSize;
+    private final Deque<Worker> idle = new ArrayDeque<>();
+    private final Thread reaper;
+    private int size;
+    private boolean shutdown;
+
+    public PodPool(
+            KubeClient client,
+            PodWatcher watcher,
+            String podsPath,
+            String podJson,
+            Duration startTimeout,
+            int maxSize) {
+        this.client = client;
+        this.watcher = watcher;
+        this.podsPath = podsPath;
+        this.podJson = podJson;
+        this.startTimeout = startTimeout;
+        this.maxSize = maxSize;
+        reaper = new Thread(this::reap, "pod-pool-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    private static boolean isRunning(Object pod) {
+        return "Running".equals(Json.get(pod, "status", "phase"));
+    }
+
+    private static boolean isSettled(Object pod) {
+        return pod == null || !"Pending".equals(Json.get(pod, "status", "phase"));
+    }
+
+    private String create() throws IOException, InterruptedException {
+        Object created = client.post(podsPath, podJson);
+        String name = (String) Json.get(created, "metadata", "name");
+        watcher.track(name, created);
+        if (!isRunning(watcher.await(name, PodPool::isSettled, startTimeout))) {
+            delete(name);
+            throw new IOException("Worker Pod " + name + " failed to start");
+        }
+        return name;
+    }
+
+    private void delete(String name) {
+        watcher.forget(name);
+        try {
+            client.delete(podsPath + "/" + name);
+        } catch (IOException | InterruptedException e) {
+            System.err.println("Unable to delete Pod " + name + ": " + e.getMessage());
+        }
+    }
+
+    /// Obtains a running worker Pod for exclusive use, starting a new one if
+    /// none is idle and the pool is not full yet. Returns name of the Pod.
+    public String acquire() throws IOException, InterruptedException {
+        while (true) {
+            String lost = null;
+            synchronized (this) {
+                if (shutdown) {
+                    throw new IOException("Pod pool was shut down");
+                }
+                Worker worker = idle.pollFirst();
+                if (worker != null) {
+                    if (isRunning(watcher.await(worker.name, pod -> true, Duration.ZERO))) {
+                        return worker.name;
+                    }
+                    // Pod was evicted or deleted while idle
+                    size--;
+                    notifyAll();
+                    lost = worker.name;
+                } else if (size < maxSize) {
+                    size++;
+                    break;
+                } else {
+                    wait();
+                }
+            }
+            if (lost != null) {
+                // Delete the Pod without holding the lock, like in release()
+                delete(lost);
+            }
+        }
+        // Start the Pod without holding the lock, which may take a while
+        try {
+            return create();
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            synchronized (this) {
+                size--;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    /// Returns worker Pod to the pool. Pods that may be left in inconsistent
+    /// state are not reused, but deleted.
+    public void release(String name, boolean reusable) {
+        synchronized (this) {
+            if (reusable && !shutdown) {
+                Worker worker = new Worker(name);
+                worker.idleSince = System.nanoTime();
+                idle.addFirst(worker);
+                notifyAll();
+                return;
+            }
+            size--;
+            notifyAll();
+        }
+        delete(name);
+    }
+
+    private void reap() {
+        while (true) {
+            List<String> expired = new ArrayList<>();
+            synchronized (this) {
+                long now = System.nanoTime();
+                // Recently used workers are at the front, so oldest are reaped first
+                while (!idle.isEmpty()
+                        && now - idle.peekLast().idleSince > IDLE_TIMEOUT.toNanos()) {
+                    expired.add(idle.pollLast().name);
+                    size--;
+                }
+                notifyAll();
+            }
+            expired.forEach(this::delete);
+            try {
+                Thread.sleep(IDLE_TIMEOUT.dividedBy(5));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /// Deletes all idle worker Pods. Pods that are in use are deleted once
+    /// they are released.
+    public void shutdown() {
+        reaper.interrupt();
+        List<String> names = new ArrayList<>();
+        synchronized (this) {
+            shutdown = true;
+            for (Worker worker : idle) {
+                names.add(worker.name);
+            }
+            size -= idle.size();
+            idle.clear();
+            notifyAll();
+        }
+        names.forEach(this::delete);
+    }
+}
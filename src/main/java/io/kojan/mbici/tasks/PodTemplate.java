@@ -0,0 +1,213 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.tasks;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Spec of Pods running commands of one kind of tasks.
+///
+/// Templates are built once for each task handler and copied for each task,
+/// with command and resources adjusted. Serialized spec is properly escaped,
+/// so any command arguments can be passed.
+class PodTemplate {
+    private static final String HOSTNAME_LABEL = "kubernetes.io/hostname";
+    private static final long BUILD_USER_ID = 18611;
+    private static final String DEFAULT_WORK_VOLUME_SIZE = "1Gi";
+
+    String image;
+    List<String> command = List.of();
+    String cpuRequest;
+    String cpuLimit;
+    String memoryRequest;
+    String memoryLimit;
+    Path cacheDir;
+    String cacheClaimName;
+    Path resultDir;
+    String resultClaimName;
+    Path workDir;
+    WorkVolumeType workVolumeType = WorkVolumeType.MEMORY;
+    /// Size of work volume, or `null` if it was not configured.
+    String workVolumeSize;
+    String workVolumeStorageClass;
+    Path nodeCacheDir;
+    Map<String, Integer> preferredNodes = Map.of();
+    Object tolerations;
+    String priorityClassName;
+    String runtimeClassName;
+
+    PodTemplate() {}
+
+    private PodTemplate(PodTemplate other) {
+        image = other.image;
+        command = other.command;
+        cpuRequest = other.cpuRequest;
+        cpuLimit = other.cpuLimit;
+        memoryRequest = other.memoryRequest;
+        memoryLimit = other.memoryLimit;
+        cacheDir = other.cacheDir;
+        cacheClaimName = other.cacheClaimName;
+        resultDir = other.resultDir;
+        resultClaimName = other.resultClaimName;
+        workDir = other.workDir;
+        workVolumeType = other.workVolumeType;
+        workVolumeSize = other.workVolumeSize;
+        workVolumeStorageClass = other.workVolumeStorageClass;
+        nodeCacheDir = other.nodeCacheDir;
+        preferredNodes = other.preferredNodes;
+        tolerations = other.tolerations;
+        priorityClassName = other.priorityClassName;
+        runtimeClassName = other.runtimeClassName;
+    }
+
+    public PodTemplate copy() {
+        return new PodTemplate(this);
+    }
+
+    /// Creates JSON object with given keys and values, skipping `null` values.
+    private static Map<String, Object> object(Object... keysAndValues) {
+        Map<String, Object> object = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            if (keysAndValues[i + 1] != null) {
+                object.put((String) keysAndValues[i], keysAndValues[i + 1]);
+            }
+        }
+        return object;
+    }
+
+    private Map<String, Object> getWorkVolumeSource() {
+        String workVolumeSize =
+                this.workVolumeSize != null ? this.workVolumeSize : DEFAULT_WORK_VOLUME_SIZE;
+        switch (workVolumeType) {
+            case EPHEMERAL:
+                return object(
+                        "ephemeral",
+                        object(
+                                "volumeClaimTemplate",
+                                object(
+                                        "spec",
+                                        object(
+                                                "storageClassName",
+                                                workVolumeStorageClass,
+                                                "accessModes",
+                                                List.of("ReadWriteOnce"),
+                                                "resources",
+                                                object(
+                                                        "requests",
+                                                        object("storage", workVolumeSize))))));
+            case DISK:
+                return object("emptyDir", object("sizeLimit", workVolumeSize));
+            default:
+                return object("emptyDir", object("medium", "Memory", "sizeLimit", workVolumeSize));
+        }
+    }
+
+    private Object getAffinity() {
+        if (preferredNodes.isEmpty()) {
+            return null;
+        }
+        List<Object> terms = new ArrayList<>();
+        for (var entry : preferredNodes.entrySet()) {
+            Object expression =
+                    object(
+                            "key",
+                            HOSTNAME_LABEL,
+                            "operator",
+                            "In",
+                            "values",
+                            List.of(entry.getKey()));
+            terms.add(
+                    object(
+                            "weight",
+                            entry.getValue(),
+                            "preference",
+                            object("matchExpressions", List.of(expression))));
+        }
+        return object(
+                "nodeAffinity", object("preferredDuringSchedulingIgnoredDuringExecution", terms));
+    }
+
+    /// Returns Pod spec as JSON object.
+    public Map<String, Object> toSpec() {
+        List<Object> mounts = new ArrayList<>();
+        mounts.add(object("name", "cache", "mountPath", cacheDir.toString()));
+        mounts.add(object("name", "result", "mountPath", resultDir.toString()));
+        mounts.add(object("name", "work", "mountPath", workDir.toString()));
+        List<Object> volumes = new ArrayList<>();
+        volumes.add(
+                object(
+                        "name",
+                        "cache",
+                        "persistentVolumeClaim",
+                        object("claimName", cacheClaimName)));
+        volumes.add(
+                object(
+                        "name",
+                        "result",
+                        "persistentVolumeClaim",
+                        object("claimName", resultClaimName)));
+        Map<String, Object> workVolume = object("name", "work");
+        workVolume.putAll(getWorkVolumeSource());
+        volumes.add(workVolume);
+        if (nodeCacheDir != null) {
+            mounts.add(object("name", "node-cache", "mountPath", nodeCacheDir.toString()));
+            volumes.add(
+                    object(
+                            "name",
+                            "node-cache",
+                            "hostPath",
+                            object("path", nodeCacheDir.toString(), "type", "Directory")));
+        }
+        Object container =
+                object(
+                        "name",
+                        "main",
+                        "image",
+                        image,
+                        "imagePullPolicy",
+                        "IfNotPresent",
+                        "command",
+                        command,
+                        "securityContext",
+                        object("privileged", true, "runAsUser", BUILD_USER_ID),
+                        "volumeMounts",
+                        mounts,
+                        "resources",
+                        object(
+                                "requests",
+                                object("cpu", cpuRequest, "memory", memoryRequest),
+                                "limits",
+                                object("cpu", cpuLimit, "memory", memoryLimit)));
+        return object(
+                "restartPolicy",
+                "Never",
+                "priorityClassName",
+                priorityClassName,
+                "runtimeClassName",
+                runtimeClassName,
+                "tolerations",
+                tolerations,
+                "affinity",
+                getAffinity(),
+                "containers",
+                List.of(container),
+                "volumes",
+                volumes);
+    }
+}
@@ -0,0 +1,186 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.tasks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/// Tracks state of Pods through a single watch connection shared by all tasks.
+///
+/// The watch is re-established whenever it ends. If the server no longer has
+/// history since the last seen resource version, Pods are listed again.
+class PodWatcher extends Thread {
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    private final KubeClient client;
+    private final String podsPath;
+    private final String labelSelector;
+    private final Map<String, Object> pods = new HashMap<>();
+    private final Set<String> trackedSinceList = new HashSet<>();
+
+    public PodWatcher(KubeClient client, String podsPath, String labelSelector) {
+        super("pod-watcher");
+        setDaemon(true);
+        this.client = client;
+        this.podsPath = podsPath;
+        this.labelSelector = labelSelector;
+    }
+
+    private static String getName(Object pod) {
+        return (String) Json.get(pod, "metadata", "name");
+    }
+
+    private synchronized void update(String name, Object pod) {
+        if (pod != null) {
+            pods.put(name, pod);
+        } else {
+            pods.remove(name);
+        }
+        notifyAll();
+    }
+
+    private String list() throws IOException, InterruptedException {
+        synchronized (this) {
+            trackedSinceList.clear();
+        }
+        // Other threads are not blocked while Pods are being listed
+        Object list = client.get(podsPath + "?labelSelector=" + labelSelector);
+        synchronized (this) {
+            // Pods that vanished while the watch was down must not be kept,
+            // but Pods that were created after the list was served are
+            Map<String, Object> listed = new HashMap<>();
+            for (Object pod : (List<?>) Json.get(list, "items")) {
+                listed.put(getName(pod), pod);
+            }
+            for (String name : trackedSinceList) {
+                if (!listed.containsKey(name) && pods.containsKey(name)) {
+                    listed.put(name, pods.get(name));
+                }
+            }
+            pods.clear();
+            pods.putAll(listed);
+            notifyAll();
+        }
+        return (String) Json.get(list, "metadata", "resourceVersion");
+    }
+
+    /// Follows the watch until it ends. Returns resource version to resume
+    /// from, or `null` if Pods need to be listed again.
+    private String watch(String resourceVersion) throws IOException, InterruptedException {
+        String path =
+                podsPath
+                        + "?watch=true&allowWatchBookmarks=true&labelSelector="
+                        + labelSelector
+                        + "&resourceVersion="
+                        + resourceVersion;
+        try (Stream<String> lines = client.watch(path)) {
+            for (Iterator<String> it = lines.iterator(); it.hasNext(); ) {
+                String line = it.next();
+                if (line.isBlank()) {
+                    continue;
+                }
+                Object event = Json.parse(line);
+                String type = (String) Json.get(event, "type");
+                Object pod = Json.get(event, "object");
+                if ("ERROR".equals(type)) {
+                    // Most likely 410 Gone, resource version is too old
+                    return null;
+                }
+                resourceVersion = (String) Json.get(pod, "metadata", "resourceVersion");
+                if ("DELETED".equals(type)) {
+                    update(getName(pod), null);
+                } else if (!"BOOKMARK".equals(type)) {
+                    update(getName(pod), pod);
+                }
+            }
+        }
+        return resourceVersion;
+    }
+
+    @Override
+    public void run() {
+        String resourceVersion = null;
+        while (true) {
+            try {
+                if (resourceVersion == null) {
+                    resourceVersion = list();
+                }
+                resourceVersion = watch(resourceVersion);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Pod watch failed, retrying: " + e.getMessage());
+                try {
+                    Thread.sleep(RETRY_DELAY);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /// Waits until state of given Pod matches the condition, or until timeout
+    /// expires. Returns the last known state of the Pod, which is `null` if
+    /// the Pod does not exist (anymore).
+    public synchronized Object await(String name, Predicate<Object> condition, Duration timeout)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Object pod = pods.get(name);
+        while (!condition.test(pod)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            wait(remaining / 1_000_000 + 1);
+            pod = pods.get(name);
+        }
+        return pod;
+    }
+
+    /// Starts tracking Pod that was just created, unless its state was already
+    /// received from the watch.
+    public synchronized void track(String name, Object pod) {
+        trackedSinceList.add(name);
+        if (!pods.containsKey(name)) {
+            pods.put(name, pod);
+        }
+    }
+
+    /// Returns number of tracked Pods that were not scheduled or started yet.
+    public synchronized int countPending() {
+        int count = 0;
+        for (Object pod : pods.values()) {
+            if (pod != null && "Pending".equals(Json.get(pod, "status", "phase"))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /// Stops tracking given Pod, which is about to be deleted.
+    public synchronized void forget(String name) {
+        pods.remove(name);
+        trackedSinceList.remove(name);
+    }
+}
@@ -0,0 +1,107 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.tasks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/// Resources used by processes of a task.
+///
+/// Processes are sampled periodically while they run, so short-lived processes
+/// may be missed and peak memory usage is approximate. Processes running in
+/// Kubernetes Pods are sampled through the metrics API instead.
+public class ResourceUsage {
+    private static final Map<String, ResourceUsage> usages = new ConcurrentHashMap<>();
+
+    private final Map<Long, Duration> cpuTimeByPid = new HashMap<>();
+    private Duration finishedCpuTime = Duration.ZERO;
+    private long peakRss;
+
+    public static ResourceUsage of(String taskId) {
+        return usages.computeIfAbsent(taskId, id -> new ResourceUsage());
+    }
+
+    /// Stops tracking given task and returns resources it used, or `null` if none.
+    public static ResourceUsage remove(String taskId) {
+        return usages.remove(taskId);
+    }
+
+    /// Peak total resident set size in bytes.
+    public synchronized long getPeakRss() {
+        return peakRss;
+    }
+
+    /// Total CPU time of all sampled processes.
+    public synchronized Duration getCpuTime() {
+        Duration total = finishedCpuTime;
+        for (Duration cpuTime : cpuTimeByPid.values()) {
+            total = total.plus(cpuTime);
+        }
+        return total;
+    }
+
+    /// Samples resource usage of given process and all its descendants.
+    synchronized void sample(ProcessHandle process) {
+        long rss = 0;
+        List<ProcessHandle> tree =
+                Stream.concat(Stream.of(process), process.descendants()).toList();
+        for (ProcessHandle handle : tree) {
+            rss += readRss(handle.pid());
+            handle.info()
+                    .totalCpuDuration()
+                    .ifPresent(
+                            cpuTime ->
+                                    cpuTimeByPid.merge(
+                                            handle.pid(),
+                                            cpuTime,
+                                            (a, b) -> a.compareTo(b) >= 0 ? a : b));
+        }
+        peakRss = Math.max(peakRss, rss);
+    }
+
+    /// Records usage of a remote container, which is assumed to have stayed
+    /// the same for given interval.
+    synchronized void sample(long memory, double cpu, Duration interval) {
+        peakRss = Math.max(peakRss, memory);
+        finishedCpuTime = finishedCpuTime.plusNanos((long) (cpu * interval.toNanos()));
+    }
+
+    /// Moves CPU time of sampled processes to finished, so that their PIDs can be reused.
+    synchronized void finish() {
+        finishedCpuTime = getCpuTime();
+        cpuTimeByPid.clear();
+    }
+
+    private static long readRss(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Process has already exited
+        }
+        return 0;
+    }
+}
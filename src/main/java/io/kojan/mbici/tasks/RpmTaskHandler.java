@@ -36,7 +36,7 @@ public class RpmTaskHandler extends AbstractTaskHandler {
     @Override
     public void handleTask(TaskExecutionContext context) throws TaskTermination {
         Path srpmPath = context.getDependencyArtifact(ArtifactType.SRPM);
-        Mock mock = new Mock();
+        Mock mock = createMock();
         for (Parameter param : macros) {
             mock.addMacro(param.getName(), param.getValue());
         }
@@ -50,7 +50,9 @@ public class RpmTaskHandler extends AbstractTaskHandler {
                                         && !p.getFileName().toString().endsWith(".src.rpm")
                                         && bfa.isRegularFile())) {
             for (var it = s.iterator(); it.hasNext(); ) {
-                context.addArtifact(ArtifactType.RPM, it.next().getFileName().toString());
+                Path rpmPath = it.next();
+                storeBlob(rpmPath);
+                context.addArtifact(ArtifactType.RPM, rpmPath.getFileName().toString());
             }
         } catch (IOException e) {
             throw TaskTermination.error("I/O error when looknig for RPM files: " + e.getMessage());
@@ -66,7 +66,7 @@ public class SrpmTaskHandler extends AbstractTaskHandler {
     public void handleTask(TaskExecutionContext context) throws TaskTermination {
         Path sourcePath = context.getDependencyArtifact(ArtifactType.CHECKOUT);
         Path specPath = findOneFile(sourcePath, ".spec");
-        Mock mock = new Mock();
+        Mock mock = createMock();
         for (Parameter param : macros) {
             mock.addMacro(param.getName(), param.getValue());
         }
@@ -16,6 +16,11 @@
 package io.kojan.mbici.workspace;
 
 import io.kojan.mbici.AbstractCommand;
+import io.kojan.mbici.cache.LogCompression;
+import io.kojan.mbici.execute.PersistenceMode;
+import io.kojan.mbici.execute.SchedulingMode;
+import io.kojan.mbici.execute.ThrottleMode;
+import io.kojan.mbici.tasks.MockChroot;
 import java.nio.file.Path;
 import picocli.CommandLine.Option;
 
@@ -110,6 +115,49 @@ public abstract class AbstractConfigCommand extends AbstractCommand {
             description = "Max number of RPM build tasks running at the same time.")
     private Integer maxRpmTasks;
 
+    @Option(
+            names = {"--throttle"},
+            description = "Task throttling mode, one of: ${COMPLETION-CANDIDATES}.")
+    private ThrottleMode throttleMode;
+
+    @Option(
+            names = {"--scheduling"},
+            description = "Order in which ready tasks get capacity: ${COMPLETION-CANDIDATES}.")
+    private SchedulingMode schedulingMode;
+
+    @Option(
+            names = {"--persistence"},
+            description = "How workflow state is saved: ${COMPLETION-CANDIDATES}.")
+    private PersistenceMode persistenceMode;
+
+    @Option(
+            names = {"--clean-work-dirs"},
+            arity = "1",
+            description = "Whether work dirs of successful tasks are deleted as they finish.")
+    private Boolean cleanWorkDirs;
+
+    @Option(
+            names = {"--log-compression"},
+            description = "How command logs are compressed, one of: ${COMPLETION-CANDIDATES}.")
+    private LogCompression logCompression;
+
+    @Option(
+            names = {"--mock-chroot"},
+            description = "How mock provides buildroots, one of: ${COMPLETION-CANDIDATES}.")
+    private MockChroot mockChroot;
+
+    @Option(
+            names = {"--mock-nosync"},
+            arity = "1",
+            description = "Whether fsync calls in mock buildroots are turned into no-ops.")
+    private Boolean mockNosync;
+
+    @Option(
+            names = {"--mock-dnf-cache"},
+            arity = "1",
+            description = "Whether dnf metadata is shared between mock builds.")
+    private Boolean mockDnfCache;
+
     boolean updateConfig(WorkspaceConfig config) {
         boolean updated = false;
         if (subjectPath != null) {
@@ -184,6 +232,38 @@ public abstract class AbstractConfigCommand extends AbstractCommand {
             config.setMaxRpmTasks(maxRpmTasks);
             updated = true;
         }
+        if (throttleMode != null) {
+            config.setThrottleMode(throttleMode);
+            updated = true;
+        }
+        if (schedulingMode != null) {
+            config.setSchedulingMode(schedulingMode);
+            updated = true;
+        }
+        if (persistenceMode != null) {
+            config.setPersistenceMode(persistenceMode);
+            updated = true;
+        }
+        if (cleanWorkDirs != null) {
+            config.setCleanWorkDirs(cleanWorkDirs);
+            updated = true;
+        }
+        if (logCompression != null) {
+            config.setLogCompression(logCompression);
+            updated = true;
+        }
+        if (mockChroot != null) {
+            config.setMockChroot(mockChroot);
+            updated = true;
+        }
+        if (mockNosync != null) {
+            config.setMockNosync(mockNosync);
+            updated = true;
+        }
+        if (mockDnfCache != null) {
+            config.setMockDnfCache(mockDnfCache);
+            updated = true;
+        }
         return updated;
     }
 }
@@ -16,6 +16,7 @@
 package io.kojan.mbici.workspace;
 
 import io.kojan.mbici.AbstractCommand;
+import io.kojan.mbici.execute.WorkflowJournal;
 import io.kojan.workflow.model.Result;
 import io.kojan.workflow.model.Workflow;
 import io.kojan.xml.XMLException;
@@ -39,7 +40,7 @@ public abstract class AbstractTmtCommand extends AbstractCommand {
 
     public static Path findComposeOrAbort(Workspace ws) throws IOException, XMLException {
         WorkspaceConfig c = ws.getConfig();
-        Workflow wf = Workflow.readFromXML(c.getWorkflowPath());
+        Workflow wf = WorkflowJournal.read(c.getWorkflowPath());
         for (Result result : wf.getResults()) {
             if (result.getTaskId().equals("compose")) {
                 return c.getResultDir().resolve("compose").resolve(result.getId()).resolve("repo");
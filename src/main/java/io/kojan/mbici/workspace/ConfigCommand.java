@@ -99,6 +99,17 @@ public class ConfigCommand extends AbstractConfigCommand {
             printHuman(18, "max checkout tasks", c.getMaxCheckoutTasks());
             printHuman(18, "max SRPM tasks", c.getMaxSrpmTasks());
             printHuman(18, "max RPM tasks", c.getMaxRpmTasks());
+            printHuman(18, "throttle mode", c.getThrottleMode());
+            printHuman(18, "scheduling mode", c.getSchedulingMode());
+            printHuman(18, "persistence mode", c.getPersistenceMode());
+            printHuman(18, "clean work dirs", c.getCleanWorkDirs());
+            printHuman(18, "log compression", c.getLogCompression());
+            printHuman(18, "log head size", c.getLogHeadSize());
+            printHuman(18, "log tail size", c.getLogTailSize());
+            printHuman(18, "mock chroot", c.getMockChroot());
+            printHuman(18, "mock tmpfs size", c.getMockTmpfsSize());
+            printHuman(18, "mock nosync", c.getMockNosync());
+            printHuman(18, "mock dnf cache", c.getMockDnfCache());
         }
 
         return 0;
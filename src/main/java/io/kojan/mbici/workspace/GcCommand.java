@@ -0,0 +1,96 @@
+/*-
+ * Copyright (c) 2026 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kojan.mbici.workspace;
+
+import io.kojan.mbici.AbstractCommand;
+import io.kojan.mbici.Main;
+import io.kojan.mbici.cache.CacheManager;
+import io.kojan.mbici.cache.GarbageCollector;
+import io.kojan.mbici.execute.WorkflowJournal;
+import io.kojan.workflow.model.Workflow;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(
+        name = "gc",
+        description = "Delete task results, work dirs and cache entries that are no longer needed.",
+        mixinStandardHelpOptions = true,
+        versionProvider = Main.class)
+public class GcCommand extends AbstractCommand {
+
+    @Option(
+            names = {"-k", "--keep-workflows"},
+            description = "Number of past workflows whose results are kept, besides the current.")
+    private int keepWorkflows = 5;
+
+    @Option(
+            names = {"--grace-period"},
+            description = "Number of hours during which recently modified files are kept.")
+    private int gracePeriod = 24;
+
+    @Override
+    public Integer call() throws Exception {
+
+        Workspace ws = Workspace.findOrAbort();
+        WorkspaceConfig c = ws.getConfig();
+        CacheManager cacheManager =
+                new CacheManager(c.getResultDir(), c.getCacheDir(), c.getWorkDir());
+        GarbageCollector gc = new GarbageCollector(cacheManager, Duration.ofHours(gracePeriod));
+
+        if (Files.exists(c.getWorkflowPath())) {
+            gc.markReachable(WorkflowJournal.read(c.getWorkflowPath()));
+        }
+
+        List<Path> archived;
+        try (Stream<Path> s = Files.list(cacheManager.getWorkflowArchiveDir())) {
+            // Archived workflows are named after time of archival
+            archived =
+                    s.sorted(Comparator.comparing(Path::getFileName).reversed())
+                            .collect(Collectors.toList());
+        }
+        for (int i = 0; i < archived.size(); i++) {
+            if (i < keepWorkflows) {
+                gc.markReachable(Workflow.readFromXML(archived.get(i)));
+            } else {
+                Files.delete(archived.get(i));
+            }
+        }
+
+        gc.collect();
+
+        info("Removed results: " + gc.getRemovedResults());
+        info("Removed work dirs: " + gc.getRemovedWorkDirs());
+        info("Removed pending dirs: " + gc.getRemovedPendingDirs());
+        info("Removed blobs: " + gc.getRemovedBlobs());
+        info("Removed mock root caches: " + gc.getRemovedRootCaches());
+        info("Removed mock config fragments: " + gc.getRemovedMockConfigs());
+        if (gc.getFailures() > 0) {
+            error("Failed to remove " + gc.getFailures() + " entries, see messages above");
+            info("Reclaimed " + gc.getReclaimedBytes() / (1024 * 1024) + " MiB of disk space");
+            return 1;
+        }
+        success("Reclaimed " + gc.getReclaimedBytes() / (1024 * 1024) + " MiB of disk space");
+
+        return 0;
+    }
+}
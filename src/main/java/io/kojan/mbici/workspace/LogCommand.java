@@ -17,13 +17,32 @@ package io.kojan.mbici.workspace;
 
 import io.kojan.mbici.AbstractCommand;
 import io.kojan.mbici.Main;
+import io.kojan.mbici.cache.LogFiles;
+import io.kojan.mbici.cache.LogFollower;
+import io.kojan.mbici.execute.WorkflowJournal;
 import io.kojan.mbici.model.Phase;
 import io.kojan.mbici.model.Plan;
+import io.kojan.mbici.tasks.KubeClient;
+import io.kojan.mbici.tasks.Kubernetes;
 import io.kojan.workflow.model.Result;
 import io.kojan.workflow.model.Workflow;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
@@ -34,6 +53,7 @@ import picocli.CommandLine.Parameters;
         mixinStandardHelpOptions = true,
         versionProvider = Main.class)
 public class LogCommand extends AbstractCommand {
+    private static final Duration FOLLOW_CHECK_INTERVAL = Duration.ofSeconds(2);
 
     @Option(
             names = {"-P", "--path"},
@@ -65,6 +85,16 @@ public class LogCommand extends AbstractCommand {
             description = "Print SRPM task logs instead of RPM task logs.")
     private boolean srpm;
 
+    @Option(
+            names = {"-f", "--follow"},
+            description = "Follow log of a task that is still running as it grows.")
+    private boolean follow;
+
+    @Option(
+            names = {"-n", "--line"},
+            description = "Start displaying the log at given line.")
+    private long line = 1;
+
     @Parameters(
             index = "0",
             arity = "0..1",
@@ -76,7 +106,7 @@ public class LogCommand extends AbstractCommand {
 
         Workspace ws = Workspace.findOrAbort();
         WorkspaceConfig c = ws.getConfig();
-        Workflow wf = Workflow.readFromXML(c.getWorkflowPath());
+        Workflow wf = WorkflowJournal.read(c.getWorkflowPath());
 
         Path cwd = Path.of(".").toAbsolutePath();
         if (component == null) {
@@ -113,6 +143,9 @@ public class LogCommand extends AbstractCommand {
         }
 
         String taskId = component + (srpm ? "-srpm" : "-" + phase + "-rpm");
+        if (follow) {
+            return follow(c, taskId);
+        }
         Result result = null;
         for (Result res : wf.getResults()) {
             if (res.getTaskId().equals(taskId)) {
@@ -121,6 +154,7 @@ public class LogCommand extends AbstractCommand {
         }
         if (result == null) {
             error("There is no result for task " + taskId);
+            info("Use --follow to display log of a task that is still running");
             return 1;
         }
 
@@ -132,12 +166,13 @@ public class LogCommand extends AbstractCommand {
                 taskDir = linkPath;
             }
         }
-        Path logPath =
+        Path plainPath =
                 taskDir.resolve(artifact != null ? artifact : rootLog ? "root.log" : "build.log");
+        Path logPath = LogFiles.find(plainPath);
 
-        if (!Files.isRegularFile(logPath)) {
-            error("Unable to find " + logPath.getFileName());
-            info("It was expected to be found at " + logPath);
+        if (logPath == null) {
+            error("Unable to find " + plainPath.getFileName());
+            info("It was expected to be found at " + plainPath);
             return 1;
         }
 
@@ -148,6 +183,156 @@ public class LogCommand extends AbstractCommand {
 
         String pager = noPager ? "cat" : System.getenv().getOrDefault("PAGER", "less");
 
-        return new ProcessBuilder(pager, logPath.toString()).inheritIO().start().waitFor();
+        if (logPath.equals(plainPath) && line <= 1) {
+            return new ProcessBuilder(pager, logPath.toString()).inheritIO().start().waitFor();
+        }
+
+        // Compressed logs and logs displayed from the middle are fed to pager
+        // through its standard input
+        Process process =
+                new ProcessBuilder(pager)
+                        .redirectInput(Redirect.PIPE)
+                        .redirectOutput(Redirect.INHERIT)
+                        .redirectError(Redirect.INHERIT)
+                        .start();
+        try (InputStream is = LogFiles.openAtLine(logPath, line);
+                OutputStream os = process.getOutputStream()) {
+            is.transferTo(os);
+        } catch (IOException e) {
+            // Pager was closed before reading the whole log
+        }
+        return process.waitFor();
+    }
+
+    private String getLogName() {
+        return artifact != null ? artifact : rootLog ? "root.log" : "build.log";
+    }
+
+    /// Returns result dir of the most recent execution of given task that
+    /// is still running, skipping dirs of executions that already have their
+    /// result in the workflow.
+    private static Path findLatestResultDir(WorkspaceConfig c, String taskId)
+            throws Exception {
+        Path dir = c.getResultDir().resolve(taskId);
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        Workflow wf = WorkflowJournal.read(c.getWorkflowPath());
+        Set<String> finished =
+                wf.getResults().stream()
+                        .filter(res -> res.getTaskId().equals(taskId))
+                        .map(Result::getId)
+                        .collect(Collectors.toSet());
+        try (Stream<Path> dirs = Files.list(dir)) {
+            return dirs.filter(Files::isDirectory)
+                    .filter(p -> !finished.contains(p.getFileName().toString()))
+                    .max(Comparator.comparingLong(p -> p.toFile().lastModified()))
+                    .orElse(null);
+        }
+    }
+
+    private static boolean hasResult(WorkspaceConfig c, String taskId, String resultId)
+            throws Exception {
+        Workflow wf = WorkflowJournal.read(c.getWorkflowPath());
+        return wf.getResults().stream()
+                .anyMatch(res -> res.getTaskId().equals(taskId) && res.getId().equals(resultId));
+    }
+
+    private static KubeClient getKubeClient(WorkspaceConfig c) throws Exception {
+        if (c.getKubeApiServer() != null) {
+            return new KubeClient(
+                    c.getKubeApiServer(), c.getKubeApiTokenFile(), c.getKubeApiCaFile());
+        }
+        if (KubeClient.isInCluster()) {
+            return KubeClient.inCluster();
+        }
+        return null;
+    }
+
+    private static String getKubeNamespace(WorkspaceConfig c) throws IOException {
+        if (c.getKubeNamespace() != null) {
+            return c.getKubeNamespace();
+        }
+        String namespace = KubeClient.getInClusterNamespace();
+        return namespace != null ? namespace : "default";
+    }
+
+    private int follow(WorkspaceConfig c, String taskId) throws Exception {
+        Path taskDir = findLatestResultDir(c, taskId);
+        if (taskDir != null && LogFiles.find(taskDir.resolve(getLogName())) != null) {
+            return followFile(c, taskId, taskDir);
+        }
+        // Result volume may not be visible on this host, but the Pod running
+        // the task can still be reached through Kubernetes API
+        KubeClient apiClient = getKubeClient(c);
+        if (apiClient != null && artifact == null && !rootLog) {
+            try (InputStream is =
+                    Kubernetes.followTaskLog(apiClient, getKubeNamespace(c), taskId)) {
+                if (is != null) {
+                    info("Following output of Pod running task " + taskId);
+                    is.transferTo(System.out);
+                    return 0;
+                }
+            }
+        }
+        if (taskDir == null) {
+            error("Task " + taskId + " has not started yet");
+            return 1;
+        }
+        return followFile(c, taskId, taskDir);
+    }
+
+    /// Copies log to stdout as it grows, until the task finishes. Changes of
+    /// result dir are watched for, so that the log is read only when there is
+    /// something new in it.
+    private int followFile(WorkspaceConfig c, String taskId, Path taskDir) throws Exception {
+        Path plainPath = taskDir.resolve(getLogName());
+        String resultId = taskDir.getFileName().toString();
+        byte[] buffer = new byte[65536];
+        LogFollower follower = null;
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            taskDir.register(
+                    watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            while (true) {
+                if (follower == null) {
+                    Path logPath = LogFiles.find(plainPath);
+                    if (logPath != null) {
+                        follower = LogFollower.open(logPath);
+                    }
+                }
+                if (follower != null) {
+                    // The file stays open even after the log is replaced by
+                    // its compressed form, so nothing is lost
+                    int n;
+                    while ((n = follower.read(buffer)) > 0) {
+                        System.out.write(buffer, 0, n);
+                    }
+                    System.out.flush();
+                }
+                WatchKey key =
+                        watcher.poll(FOLLOW_CHECK_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                } else if (hasResult(c, taskId, resultId)) {
+                    if (follower == null) {
+                        error("Task " + taskId + " finished without writing " + getLogName());
+                        return 1;
+                    }
+                    int n;
+                    while ((n = follower.read(buffer)) > 0) {
+                        System.out.write(buffer, 0, n);
+                    }
+                    System.out.flush();
+                    return 0;
+                }
+            }
+        } finally {
+            if (follower != null) {
+                follower.close();
+            }
+        }
     }
 }
@@ -146,6 +146,51 @@ public class RunCommand extends AbstractCommand {
             if (c.getKubeRpmMemoryLimit() != null) {
                 e.setRpmMemoryLimit(c.getKubeRpmMemoryLimit());
             }
+            if (c.getKubeApiServer() != null) {
+                e.setApiServer(c.getKubeApiServer());
+            }
+            if (c.getKubeApiTokenFile() != null) {
+                e.setApiTokenFile(c.getKubeApiTokenFile());
+            }
+            if (c.getKubeApiCaFile() != null) {
+                e.setApiCaFile(c.getKubeApiCaFile());
+            }
+            if (c.getKubeWarmPoolSize() != null) {
+                e.setWarmPoolSize(c.getKubeWarmPoolSize());
+            }
+            if (c.getKubePodSizing() != null) {
+                e.setPodSizing(c.getKubePodSizing());
+            }
+            if (c.getKubeNodeCacheDir() != null) {
+                e.setNodeCacheDir(c.getKubeNodeCacheDir());
+            }
+            if (c.getKubeSrpmWorkVolumeType() != null) {
+                e.setSrpmWorkVolumeType(c.getKubeSrpmWorkVolumeType());
+            }
+            if (c.getKubeSrpmWorkVolumeSize() != null) {
+                e.setSrpmWorkVolumeSize(c.getKubeSrpmWorkVolumeSize());
+            }
+            if (c.getKubeRpmWorkVolumeType() != null) {
+                e.setRpmWorkVolumeType(c.getKubeRpmWorkVolumeType());
+            }
+            if (c.getKubeRpmWorkVolumeSize() != null) {
+                e.setRpmWorkVolumeSize(c.getKubeRpmWorkVolumeSize());
+            }
+            if (c.getKubeWorkVolumeStorageClass() != null) {
+                e.setWorkVolumeStorageClass(c.getKubeWorkVolumeStorageClass());
+            }
+            if (c.getKubeTolerations() != null) {
+                e.setTolerations(c.getKubeTolerations());
+            }
+            if (c.getKubePriorityClassName() != null) {
+                e.setPriorityClassName(c.getKubePriorityClassName());
+            }
+            if (c.getKubeRuntimeClassName() != null) {
+                e.setRuntimeClassName(c.getKubeRuntimeClassName());
+            }
+            if (c.getKubeInfraRetryBudget() != null) {
+                e.setInfraRetryBudget(c.getKubeInfraRetryBudget());
+            }
             execute = e;
         } else {
             execute = new LocalExecuteCommand();
@@ -158,6 +203,37 @@ public class RunCommand extends AbstractCommand {
         execute.setMaxCheckoutTasks(c.getMaxCheckoutTasks());
         execute.setMaxSrpmTasks(kube ? 200 : c.getMaxSrpmTasks());
         execute.setMaxRpmTasks(kube ? 200 : c.getMaxRpmTasks());
+        if (!kube && c.getThrottleMode() != null) {
+            execute.setThrottleMode(c.getThrottleMode());
+        }
+        if (kube && c.getKubeThrottleMode() != null) {
+            execute.setThrottleMode(c.getKubeThrottleMode());
+        }
+        if (c.getSchedulingMode() != null) {
+            execute.setSchedulingMode(c.getSchedulingMode());
+        }
+        if (c.getPersistenceMode() != null) {
+            execute.setPersistenceMode(c.getPersistenceMode());
+        }
+        if (c.getCleanWorkDirs() != null) {
+            execute.setCleanWorkDirs(c.getCleanWorkDirs());
+        }
+        if (c.getLogCompression() != null) {
+            execute.setLogCompression(c.getLogCompression());
+        }
+        execute.setLogHeadSize(c.getLogHeadSize());
+        execute.setLogTailSize(c.getLogTailSize());
+        if (c.getMockChroot() != null) {
+            execute.setMockChroot(c.getMockChroot());
+        }
+        execute.setMockTmpfsSize(c.getMockTmpfsSize());
+        if (c.getMockNosync() != null) {
+            execute.setMockNosync(c.getMockNosync());
+        }
+        if (c.getMockDnfCache() != null) {
+            execute.setMockDnfCache(c.getMockDnfCache());
+        }
+        execute.setPlanPath(c.getPlanPath());
         execute.setBatchMode(batchMode);
 
         info("Running execute command...");
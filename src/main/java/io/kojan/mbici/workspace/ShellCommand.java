@@ -20,6 +20,7 @@ import io.kojan.mbici.Main;
 import io.kojan.mbici.execute.TaskHandlerFactoryImpl;
 import io.kojan.mbici.generate.WorkflowFactory;
 import io.kojan.mbici.tasks.Guest;
+import io.kojan.mbici.tasks.MockOptions;
 import io.kojan.mbici.tasks.ProvisionTaskHandler;
 import io.kojan.workflow.TaskHandlerFactory;
 import io.kojan.workflow.TaskStorage;
@@ -105,7 +106,7 @@ public class ShellCommand extends AbstractCommand {
         WorkflowFactory wff = new WorkflowFactory();
         Workflow wf = wff.createTestWorkflow(id, yaml.getTestPlatform(), composeRepoDir);
 
-        TaskHandlerFactory handlerFactory = new TaskHandlerFactoryImpl(null);
+        TaskHandlerFactory handlerFactory = new TaskHandlerFactoryImpl(null, new MockOptions());
         TaskThrottle throttle =
                 new TaskThrottle() {
                     public void releaseCapacity(Task task) {}
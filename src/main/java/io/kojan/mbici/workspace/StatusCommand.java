@@ -18,13 +18,25 @@ package io.kojan.mbici.workspace;
 import io.kojan.mbici.AbstractCommand;
 import io.kojan.mbici.Main;
 import io.kojan.mbici.cache.ArtifactType;
+import io.kojan.mbici.cache.CacheManager;
+import io.kojan.mbici.cache.HistoryStore;
+import io.kojan.mbici.execute.CriticalPath;
+import io.kojan.mbici.execute.DurationEstimator;
+import io.kojan.mbici.execute.RunningTaskRecorder;
+import io.kojan.mbici.execute.WorkflowJournal;
 import io.kojan.workflow.model.Artifact;
 import io.kojan.workflow.model.Result;
+import io.kojan.workflow.model.Task;
 import io.kojan.workflow.model.TaskOutcome;
 import io.kojan.workflow.model.Workflow;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -46,7 +58,7 @@ public class StatusCommand extends AbstractCommand {
 
         Workspace ws = Workspace.findOrAbort();
         WorkspaceConfig c = ws.getConfig();
-        Workflow workflow = Workflow.readFromXML(c.getWorkflowPath());
+        Workflow workflow = WorkflowJournal.read(c.getWorkflowPath());
 
         List<Result> failed =
                 workflow.getResults().stream()
@@ -59,6 +71,8 @@ public class StatusCommand extends AbstractCommand {
             info("Workflow outcome: PASSED");
         } else {
             info("Workflow outcome: STILL RUNNING");
+            Duration eta = estimateRemainingTime(workflow, c);
+            info("Estimated time remaining: " + formatDuration(eta));
         }
 
         if (!failed.isEmpty()) {
@@ -91,4 +105,34 @@ public class StatusCommand extends AbstractCommand {
 
         return 0;
     }
+
+    private Duration estimateRemainingTime(Workflow workflow, WorkspaceConfig c)
+            throws IOException {
+        Set<String> finished =
+                workflow.getResults().stream().map(Result::getTaskId).collect(Collectors.toSet());
+        List<Task> unfinished =
+                workflow.getTasks().stream()
+                        .filter(task -> !finished.contains(task.getId()))
+                        .collect(Collectors.toList());
+        CacheManager cacheManager =
+                new CacheManager(c.getResultDir(), c.getCacheDir(), c.getWorkDir());
+        DurationEstimator estimator =
+                new DurationEstimator(HistoryStore.openReadOnly(cacheManager.getHistoryDir()));
+        Map<String, Instant> running = RunningTaskRecorder.read(c.getWorkflowPath());
+        Instant now = Instant.now();
+        for (Task task : unfinished) {
+            Instant started = running.get(task.getId());
+            if (started != null) {
+                estimator.addElapsed(task.getId(), Duration.between(started, now));
+            }
+        }
+        return new CriticalPath(unfinished, estimator).getLength();
+    }
+
+    private static String formatDuration(Duration duration) {
+        if (duration.toHours() > 0) {
+            return duration.toHours() + "h " + duration.toMinutesPart() + "m";
+        }
+        return duration.toMinutes() + "m " + duration.toSecondsPart() + "s";
+    }
 }
@@ -15,6 +15,13 @@
  */
 package io.kojan.mbici.workspace;
 
+import io.kojan.mbici.cache.LogCompression;
+import io.kojan.mbici.execute.PersistenceMode;
+import io.kojan.mbici.execute.SchedulingMode;
+import io.kojan.mbici.execute.ThrottleMode;
+import io.kojan.mbici.tasks.MockChroot;
+import io.kojan.mbici.tasks.PodSizingMode;
+import io.kojan.mbici.tasks.WorkVolumeType;
 import io.kojan.xml.Attribute;
 import io.kojan.xml.Entity;
 import io.kojan.xml.XMLException;
@@ -180,6 +187,30 @@ public class Workspace {
                             WorkspaceConfig::setMaxRpmTasks,
                             Number::toString,
                             Integer::parseInt),
+                    Attribute.ofOptional(
+                            "throttleMode",
+                            WorkspaceConfig::getThrottleMode,
+                            WorkspaceConfig::setThrottleMode,
+                            ThrottleMode::name,
+                            ThrottleMode::valueOf),
+                    Attribute.ofOptional(
+                            "schedulingMode",
+                            WorkspaceConfig::getSchedulingMode,
+                            WorkspaceConfig::setSchedulingMode,
+                            SchedulingMode::name,
+                            SchedulingMode::valueOf),
+                    Attribute.ofOptional(
+                            "persistenceMode",
+                            WorkspaceConfig::getPersistenceMode,
+                            WorkspaceConfig::setPersistenceMode,
+                            PersistenceMode::name,
+                            PersistenceMode::valueOf),
+                    Attribute.ofOptional(
+                            "cleanWorkDirs",
+                            WorkspaceConfig::getCleanWorkDirs,
+                            WorkspaceConfig::setCleanWorkDirs,
+                            Object::toString,
+                            Boolean::parseBoolean),
                     Attribute.ofOptional(
                             "kubeNamespace",
                             WorkspaceConfig::getKubeNamespace,
@@ -231,5 +262,123 @@ public class Workspace {
                     Attribute.ofOptional(
                             "kubeRpmMemoryLimit",
                             WorkspaceConfig::getKubeRpmMemoryLimit,
-                            WorkspaceConfig::setKubeRpmMemoryLimit));
+                            WorkspaceConfig::setKubeRpmMemoryLimit),
+                    Attribute.ofOptional(
+                            "kubeApiServer",
+                            WorkspaceConfig::getKubeApiServer,
+                            WorkspaceConfig::setKubeApiServer),
+                    Attribute.ofOptional(
+                            "kubeApiTokenFile",
+                            WorkspaceConfig::getKubeApiTokenFile,
+                            WorkspaceConfig::setKubeApiTokenFile,
+                            Path::toString,
+                            Path::of),
+                    Attribute.ofOptional(
+                            "kubeApiCaFile",
+                            WorkspaceConfig::getKubeApiCaFile,
+                            WorkspaceConfig::setKubeApiCaFile,
+                            Path::toString,
+                            Path::of),
+                    Attribute.ofOptional(
+                            "kubeWarmPoolSize",
+                            WorkspaceConfig::getKubeWarmPoolSize,
+                            WorkspaceConfig::setKubeWarmPoolSize,
+                            Number::toString,
+                            Integer::parseInt),
+                    Attribute.ofOptional(
+                            "kubePodSizing",
+                            WorkspaceConfig::getKubePodSizing,
+                            WorkspaceConfig::setKubePodSizing,
+                            PodSizingMode::name,
+                            PodSizingMode::valueOf),
+                    Attribute.ofOptional(
+                            "kubeNodeCacheDir",
+                            WorkspaceConfig::getKubeNodeCacheDir,
+                            WorkspaceConfig::setKubeNodeCacheDir,
+                            Path::toString,
+                            Path::of),
+                    Attribute.ofOptional(
+                            "kubeSrpmWorkVolumeType",
+                            WorkspaceConfig::getKubeSrpmWorkVolumeType,
+                            WorkspaceConfig::setKubeSrpmWorkVolumeType,
+                            WorkVolumeType::name,
+                            WorkVolumeType::valueOf),
+                    Attribute.ofOptional(
+                            "kubeSrpmWorkVolumeSize",
+                            WorkspaceConfig::getKubeSrpmWorkVolumeSize,
+                            WorkspaceConfig::setKubeSrpmWorkVolumeSize),
+                    Attribute.ofOptional(
+                            "kubeRpmWorkVolumeType",
+                            WorkspaceConfig::getKubeRpmWorkVolumeType,
+                            WorkspaceConfig::setKubeRpmWorkVolumeType,
+                            WorkVolumeType::name,
+                            WorkVolumeType::valueOf),
+                    Attribute.ofOptional(
+                            "kubeRpmWorkVolumeSize",
+                            WorkspaceConfig::getKubeRpmWorkVolumeSize,
+                            WorkspaceConfig::setKubeRpmWorkVolumeSize),
+                    Attribute.ofOptional(
+                            "kubeWorkVolumeStorageClass",
+                            WorkspaceConfig::getKubeWorkVolumeStorageClass,
+                            WorkspaceConfig::setKubeWorkVolumeStorageClass),
+                    Attribute.ofOptional(
+                            "kubeTolerations",
+                            WorkspaceConfig::getKubeTolerations,
+                            WorkspaceConfig::setKubeTolerations),
+                    Attribute.ofOptional(
+                            "kubePriorityClassName",
+                            WorkspaceConfig::getKubePriorityClassName,
+                            WorkspaceConfig::setKubePriorityClassName),
+                    Attribute.ofOptional(
+                            "kubeRuntimeClassName",
+                            WorkspaceConfig::getKubeRuntimeClassName,
+                            WorkspaceConfig::setKubeRuntimeClassName),
+                    Attribute.ofOptional(
+                            "kubeThrottleMode",
+                            WorkspaceConfig::getKubeThrottleMode,
+                            WorkspaceConfig::setKubeThrottleMode,
+                            ThrottleMode::name,
+                            ThrottleMode::valueOf),
+                    Attribute.ofOptional(
+                            "kubeInfraRetryBudget",
+                            WorkspaceConfig::getKubeInfraRetryBudget,
+                            WorkspaceConfig::setKubeInfraRetryBudget,
+                            Number::toString,
+                            Integer::parseInt),
+                    Attribute.ofOptional(
+                            "logCompression",
+                            WorkspaceConfig::getLogCompression,
+                            WorkspaceConfig::setLogCompression,
+                            LogCompression::name,
+                            LogCompression::valueOf),
+                    Attribute.ofOptional(
+                            "logHeadSize",
+                            WorkspaceConfig::getLogHeadSize,
+                            WorkspaceConfig::setLogHeadSize),
+                    Attribute.ofOptional(
+                            "logTailSize",
+                            WorkspaceConfig::getLogTailSize,
+                            WorkspaceConfig::setLogTailSize),
+                    Attribute.ofOptional(
+                            "mockChroot",
+                            WorkspaceConfig::getMockChroot,
+                            WorkspaceConfig::setMockChroot,
+                            MockChroot::name,
+                            MockChroot::valueOf),
+                    Attribute.ofOptional(
+                            "mockTmpfsSize",
+                            WorkspaceConfig::getMockTmpfsSize,
+                            WorkspaceConfig::setMockTmpfsSize),
+                    Attribute.ofOptional(
+                            "mockNosync",
+                            WorkspaceConfig::getMockNosync,
+                            WorkspaceConfig::setMockNosync,
+                            Object::toString,
+                            Boolean::parseBoolean),
+                    Attribute.ofOptional(
+                            "mockDnfCache",
+                            WorkspaceConfig::getMockDnfCache,
+                            WorkspaceConfig::setMockDnfCache,
+                            Object::toString,
+                            Boolean::parseBoolean));
 }
@@ -15,6 +15,13 @@
  */
 package io.kojan.mbici.workspace;
 
+import io.kojan.mbici.cache.LogCompression;
+import io.kojan.mbici.execute.PersistenceMode;
+import io.kojan.mbici.execute.SchedulingMode;
+import io.kojan.mbici.execute.ThrottleMode;
+import io.kojan.mbici.tasks.MockChroot;
+import io.kojan.mbici.tasks.PodSizingMode;
+import io.kojan.mbici.tasks.WorkVolumeType;
 import java.nio.file.Path;
 
 public class WorkspaceConfig {
@@ -37,6 +44,10 @@ public class WorkspaceConfig {
     private int maxCheckoutTasks;
     private int maxSrpmTasks;
     private int maxRpmTasks;
+    private ThrottleMode throttleMode;
+    private SchedulingMode schedulingMode;
+    private PersistenceMode persistenceMode;
+    private Boolean cleanWorkDirs;
     private String kubeNamespace;
     private String kubeContainerImage;
     private String kubeCacheVolumeClaimName;
@@ -50,6 +61,29 @@ public class WorkspaceConfig {
     private String kubeSrpmMemoryLimit;
     private String kubeRpmMemoryRequest;
     private String kubeRpmMemoryLimit;
+    private String kubeApiServer;
+    private Path kubeApiTokenFile;
+    private Path kubeApiCaFile;
+    private Integer kubeWarmPoolSize;
+    private PodSizingMode kubePodSizing;
+    private Path kubeNodeCacheDir;
+    private WorkVolumeType kubeSrpmWorkVolumeType;
+    private String kubeSrpmWorkVolumeSize;
+    private WorkVolumeType kubeRpmWorkVolumeType;
+    private String kubeRpmWorkVolumeSize;
+    private String kubeWorkVolumeStorageClass;
+    private String kubeTolerations;
+    private String kubePriorityClassName;
+    private String kubeRuntimeClassName;
+    private ThrottleMode kubeThrottleMode;
+    private Integer kubeInfraRetryBudget;
+    private LogCompression logCompression;
+    private String logHeadSize;
+    private String logTailSize;
+    private MockChroot mockChroot;
+    private String mockTmpfsSize;
+    private Boolean mockNosync;
+    private Boolean mockDnfCache;
 
     public Path getSubjectPath() {
         return subjectPath;
@@ -195,6 +229,38 @@ public class WorkspaceConfig {
         this.maxRpmTasks = maxRpmTasks;
     }
 
+    public ThrottleMode getThrottleMode() {
+        return throttleMode;
+    }
+
+    public void setThrottleMode(ThrottleMode throttleMode) {
+        this.throttleMode = throttleMode;
+    }
+
+    public SchedulingMode getSchedulingMode() {
+        return schedulingMode;
+    }
+
+    public void setSchedulingMode(SchedulingMode schedulingMode) {
+        this.schedulingMode = schedulingMode;
+    }
+
+    public PersistenceMode getPersistenceMode() {
+        return persistenceMode;
+    }
+
+    public void setPersistenceMode(PersistenceMode persistenceMode) {
+        this.persistenceMode = persistenceMode;
+    }
+
+    public Boolean getCleanWorkDirs() {
+        return cleanWorkDirs;
+    }
+
+    public void setCleanWorkDirs(Boolean cleanWorkDirs) {
+        this.cleanWorkDirs = cleanWorkDirs;
+    }
+
     public String getKubeNamespace() {
         return kubeNamespace;
     }
@@ -298,4 +364,188 @@ public class WorkspaceConfig {
     public void setKubeRpmMemoryLimit(String kubeRpmMemoryLimit) {
         this.kubeRpmMemoryLimit = kubeRpmMemoryLimit;
     }
+
+    public String getKubeApiServer() {
+        return kubeApiServer;
+    }
+
+    public void setKubeApiServer(String kubeApiServer) {
+        this.kubeApiServer = kubeApiServer;
+    }
+
+    public Path getKubeApiTokenFile() {
+        return kubeApiTokenFile;
+    }
+
+    public void setKubeApiTokenFile(Path kubeApiTokenFile) {
+        this.kubeApiTokenFile = kubeApiTokenFile;
+    }
+
+    public Path getKubeApiCaFile() {
+        return kubeApiCaFile;
+    }
+
+    public void setKubeApiCaFile(Path kubeApiCaFile) {
+        this.kubeApiCaFile = kubeApiCaFile;
+    }
+
+    public Integer getKubeWarmPoolSize() {
+        return kubeWarmPoolSize;
+    }
+
+    public void setKubeWarmPoolSize(Integer kubeWarmPoolSize) {
+        this.kubeWarmPoolSize = kubeWarmPoolSize;
+    }
+
+    public PodSizingMode getKubePodSizing() {
+        return kubePodSizing;
+    }
+
+    public void setKubePodSizing(PodSizingMode kubePodSizing) {
+        this.kubePodSizing = kubePodSizing;
+    }
+
+    public Path getKubeNodeCacheDir() {
+        return kubeNodeCacheDir;
+    }
+
+    public void setKubeNodeCacheDir(Path kubeNodeCacheDir) {
+        this.kubeNodeCacheDir = kubeNodeCacheDir;
+    }
+
+    public WorkVolumeType getKubeSrpmWorkVolumeType() {
+        return kubeSrpmWorkVolumeType;
+    }
+
+    public void setKubeSrpmWorkVolumeType(WorkVolumeType kubeSrpmWorkVolumeType) {
+        this.kubeSrpmWorkVolumeType = kubeSrpmWorkVolumeType;
+    }
+
+    public String getKubeSrpmWorkVolumeSize() {
+        return kubeSrpmWorkVolumeSize;
+    }
+
+    public void setKubeSrpmWorkVolumeSize(String kubeSrpmWorkVolumeSize) {
+        this.kubeSrpmWorkVolumeSize = kubeSrpmWorkVolumeSize;
+    }
+
+    public WorkVolumeType getKubeRpmWorkVolumeType() {
+        return kubeRpmWorkVolumeType;
+    }
+
+    public void setKubeRpmWorkVolumeType(WorkVolumeType kubeRpmWorkVolumeType) {
+        this.kubeRpmWorkVolumeType = kubeRpmWorkVolumeType;
+    }
+
+    public String getKubeRpmWorkVolumeSize() {
+        return kubeRpmWorkVolumeSize;
+    }
+
+    public void setKubeRpmWorkVolumeSize(String kubeRpmWorkVolumeSize) {
+        this.kubeRpmWorkVolumeSize = kubeRpmWorkVolumeSize;
+    }
+
+    public String getKubeWorkVolumeStorageClass() {
+        return kubeWorkVolumeStorageClass;
+    }
+
+    public void setKubeWorkVolumeStorageClass(String kubeWorkVolumeStorageClass) {
+        this.kubeWorkVolumeStorageClass = kubeWorkVolumeStorageClass;
+    }
+
+    public String getKubeTolerations() {
+        return kubeTolerations;
+    }
+
+    public void setKubeTolerations(String kubeTolerations) {
+        this.kubeTolerations = kubeTolerations;
+    }
+
+    public String getKubePriorityClassName() {
+        return kubePriorityClassName;
+    }
+
+    public void setKubePriorityClassName(String kubePriorityClassName) {
+        this.kubePriorityClassName = kubePriorityClassName;
+    }
+
+    public String getKubeRuntimeClassName() {
+        return kubeRuntimeClassName;
+    }
+
+    public void setKubeRuntimeClassName(String kubeRuntimeClassName) {
+        this.kubeRuntimeClassName = kubeRuntimeClassName;
+    }
+
+    public ThrottleMode getKubeThrottleMode() {
+        return kubeThrottleMode;
+    }
+
+    public void setKubeThrottleMode(ThrottleMode kubeThrottleMode) {
+        this.kubeThrottleMode = kubeThrottleMode;
+    }
+
+    public Integer getKubeInfraRetryBudget() {
+        return kubeInfraRetryBudget;
+    }
+
+    public void setKubeInfraRetryBudget(Integer kubeInfraRetryBudget) {
+        this.kubeInfraRetryBudget = kubeInfraRetryBudget;
+    }
+
+    public LogCompression getLogCompression() {
+        return logCompression;
+    }
+
+    public void setLogCompression(LogCompression logCompression) {
+        this.logCompression = logCompression;
+    }
+
+    public String getLogHeadSize() {
+        return logHeadSize;
+    }
+
+    public void setLogHeadSize(String logHeadSize) {
+        this.logHeadSize = logHeadSize;
+    }
+
+    public String getLogTailSize() {
+        return logTailSize;
+    }
+
+    public void setLogTailSize(String logTailSize) {
+        this.logTailSize = logTailSize;
+    }
+
+    public MockChroot getMockChroot() {
+        return mockChroot;
+    }
+
+    public void setMockChroot(MockChroot mockChroot) {
+        this.mockChroot = mockChroot;
+    }
+
+    public String getMockTmpfsSize() {
+        return mockTmpfsSize;
+    }
+
+    public void setMockTmpfsSize(String mockTmpfsSize) {
+        this.mockTmpfsSize = mockTmpfsSize;
+    }
+
+    public Boolean getMockNosync() {
+        return mockNosync;
+    }
+
+    public void setMockNosync(Boolean mockNosync) {
+        this.mockNosync = mockNosync;
+    }
+
+    public Boolean getMockDnfCache() {
+        return mockDnfCache;
+    }
+
+    public void setMockDnfCache(Boolean mockDnfCache) {
+        this.mockDnfCache = mockDnfCache;
+    }
 }
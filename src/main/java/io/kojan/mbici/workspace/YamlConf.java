@@ -22,6 +22,7 @@ import io.kojan.mbici.model.PlanBuilder;
 import io.kojan.mbici.model.Platform;
 import io.kojan.mbici.model.PlatformBuilder;
 import io.kojan.mbici.model.Repo;
+import io.kojan.mbici.model.ResourcesBuilder;
 import java.io.IOException;
 import java.io.Reader;
 import java.nio.file.Files;
@@ -91,6 +92,7 @@ public class YamlConf {
                         .filter(k -> !k.equals("macros"))
                         .filter(k -> !k.equals("platform"))
                         .filter(k -> !k.equals("test-platform"))
+                        .filter(k -> !k.equals("resources"))
                         .toList();
 
         for (String phase : phases) {
@@ -109,6 +111,33 @@ public class YamlConf {
         Map<String, Object> macros = (Map<String, Object>) conf.getOrDefault("macros", Map.of());
         macros.forEach((key, val) -> planBuilder.addMacro(new Macro(key, val.toString())));
 
+        Map<String, Map<String, Object>> resources =
+                (Map<String, Map<String, Object>>) conf.getOrDefault("resources", Map.of());
+        for (var entry : resources.entrySet()) {
+            ResourcesBuilder resourcesBuilder = new ResourcesBuilder();
+            resourcesBuilder.setComponent(entry.getKey());
+            Map<String, Object> res = entry.getValue();
+            if (res.containsKey("cpu")) {
+                resourcesBuilder.setCpu(res.get("cpu").toString());
+            }
+            if (res.containsKey("memory")) {
+                resourcesBuilder.setMemory(res.get("memory").toString());
+            }
+            if (res.containsKey("disk")) {
+                resourcesBuilder.setDisk(res.get("disk").toString());
+            }
+            if (res.containsKey("cpu-limit")) {
+                resourcesBuilder.setCpuLimit(res.get("cpu-limit").toString());
+            }
+            if (res.containsKey("memory-limit")) {
+                resourcesBuilder.setMemoryLimit(res.get("memory-limit").toString());
+            }
+            if (res.containsKey("work-volume")) {
+                resourcesBuilder.setWorkVolume(res.get("work-volume").toString().toUpperCase());
+            }
+            planBuilder.addResources(resourcesBuilder.build());
+        }
+
         return new YamlConf(
                 planBuilder.build(),
                 loadPlatform((Map<String, Object>) conf.get("platform")),